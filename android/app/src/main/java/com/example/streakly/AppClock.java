@@ -0,0 +1,45 @@
+package com.example.streakly;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Single source of "now" for the native widget pipeline
+ * Tests and the day-simulation harness swap the time source to replay days deterministically
+ */
+public final class AppClock {
+    interface TimeSource {
+        long currentTimeMillis();
+    }
+
+    private static final TimeSource SYSTEM = System::currentTimeMillis;
+    private static volatile TimeSource timeSource = SYSTEM;
+
+    private AppClock() {
+    }
+
+    public static long currentTimeMillis() {
+        return timeSource.currentTimeMillis();
+    }
+
+    /**
+     * Calendar in the default time zone set to the current time
+     */
+    public static Calendar calendar() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(currentTimeMillis());
+        return calendar;
+    }
+
+    public static Date date() {
+        return new Date(currentTimeMillis());
+    }
+
+    static void setTimeSource(TimeSource source) {
+        timeSource = source != null ? source : SYSTEM;
+    }
+
+    static void reset() {
+        timeSource = SYSTEM;
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.streakly;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming backup format for the full habit history.
+ *
+ * Layout: magic "STRK", format version, database user_version, then chunks of
+ * [type][row count][raw length][compressed length][CRC32 of raw][deflated rows],
+ * terminated by an END chunk. Rows are read from a cursor and written one chunk
+ * at a time, so memory stays bounded by CHUNK_BYTES regardless of history size.
+ */
+final class HabitBackup {
+    private static final int MAGIC = 0x5354524B; // "STRK"
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int PAGE_ROWS = 10000;
+
+    private static final byte TYPE_END = 0;
+    private static final byte TYPE_HABITS = 1;
+    private static final byte TYPE_ENTRIES = 2;
+    private static final byte TYPE_ARCHIVE = 3;
+
+    private static final String ARCHIVE_TABLE = "habit_history_archive_table";
+
+    static final class Stats {
+        long habits;
+        long entries;
+        long archives;
+    }
+
+    private HabitBackup() {
+    }
+
+    /**
+     * Write the whole history from db, which must be opened OPEN_READONLY.
+     */
+    static Stats export(SQLiteDatabase db, OutputStream output) throws IOException {
+        if (!db.isReadOnly()) {
+            // A read-write connection would turn the snapshot into a write lock held for the whole export
+            throw new IllegalArgumentException("Export needs a read-only database connection");
+        }
+
+        // One transaction for every query, so the backup is a single snapshot: a habit, entry or
+        // compaction committed mid-export can't leave entries without their habit or count a day twice.
+        // SQLite runs BEGIN IMMEDIATE on a read-only connection as a deferred read transaction, which in
+        // WAL mode is a snapshot that never blocks the app's writes.
+        db.beginTransactionNonExclusive();
+        try {
+            Stats stats = writeSnapshot(db, output);
+            db.setTransactionSuccessful();
+            return stats;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static Stats writeSnapshot(SQLiteDatabase db, OutputStream output) throws IOException {
+        ChunkWriter writer = new ChunkWriter(output);
+        Stats stats = new Stats();
+
+        writer.out.writeInt(MAGIC);
+        writer.out.writeInt(FORMAT_VERSION);
+        writer.out.writeInt(getUserVersion(db));
+
+        Cursor habits = db.rawQuery(
+            "SELECT id, title, description, reminder_time, target_days, created_at FROM habits_table ORDER BY id", null);
+        try {
+            while (habits.moveToNext()) {
+                DataOutputStream row = writer.row(TYPE_HABITS);
+                row.writeLong(habits.getLong(0));
+                writeString(row, habits.getString(1));
+                row.writeBoolean(!habits.isNull(2));
+                if (!habits.isNull(2)) {
+                    writeString(row, habits.getString(2));
+                }
+                writeString(row, habits.getString(3));
+                writeString(row, habits.getString(4));
+                row.writeLong(habits.getLong(5));
+                stats.habits++;
+            }
+        } finally {
+            habits.close();
+        }
+
+        // Keyset pages keep each cursor small; consecutive ids and dates compress far better as deltas
+        long previousId = 0;
+        long previousDate = 0;
+        int pageRows;
+        do {
+            pageRows = 0;
+            Cursor entries = db.rawQuery(
+                "SELECT id, habit_id, date, is_completed FROM habit_entries_table WHERE id > ? ORDER BY id LIMIT " + PAGE_ROWS,
+                new String[]{String.valueOf(previousId)});
+            try {
+                while (entries.moveToNext()) {
+                    long id = entries.getLong(0);
+                    long date = entries.getLong(2);
+                    DataOutputStream row = writer.row(TYPE_ENTRIES);
+                    row.writeLong(id - previousId);
+                    row.writeLong(entries.getLong(1));
+                    row.writeLong(date - previousDate);
+                    row.writeBoolean(entries.getInt(3) == 1);
+                    previousId = id;
+                    previousDate = date;
+                    stats.entries++;
+                    pageRows++;
+                }
+            } finally {
+                entries.close();
+            }
+        } while (pageRows == PAGE_ROWS);
+
+        if (hasTable(db, ARCHIVE_TABLE)) {
+            Cursor archives = db.rawQuery("SELECT habit_id, year, bits FROM " + ARCHIVE_TABLE, null);
+            try {
+                while (archives.moveToNext()) {
+                    byte[] bits = archives.getBlob(2);
+                    DataOutputStream row = writer.row(TYPE_ARCHIVE);
+                    row.writeLong(archives.getLong(0));
+                    row.writeInt(archives.getInt(1));
+                    row.writeShort(bits.length);
+                    row.write(bits);
+                    stats.archives++;
+                }
+            } finally {
+                archives.close();
+            }
+        }
+
+        writer.finish();
+        return stats;
+    }
+
+    /**
+     * Replace the database contents with the backup in a single transaction.
+     * Every chunk is verified before the transaction commits, so a corrupt file changes nothing.
+     */
+    static Stats importFrom(SQLiteDatabase db, InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a Streakly backup");
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion > FORMAT_VERSION) {
+            throw new IOException("Unsupported backup format " + formatVersion);
+        }
+        int schemaVersion = in.readInt();
+        if (schemaVersion > getUserVersion(db)) {
+            throw new IOException("Backup needs database schema " + schemaVersion + ", open the app to upgrade first");
+        }
+
+        boolean hasArchive = hasTable(db, ARCHIVE_TABLE);
+        Stats stats = new Stats();
+        ChunkReader reader = new ChunkReader(in);
+
+        db.beginTransaction();
+        try {
+            if (hasArchive) {
+                db.execSQL("DELETE FROM " + ARCHIVE_TABLE);
+            }
+            db.execSQL("DELETE FROM habit_entries_table");
+            db.execSQL("DELETE FROM habits_table");
+
+            SQLiteStatement insertHabit = db.compileStatement(
+                "INSERT INTO habits_table (id, title, description, reminder_time, target_days, created_at) VALUES (?, ?, ?, ?, ?, ?)");
+            SQLiteStatement insertEntry = db.compileStatement(
+                "INSERT INTO habit_entries_table (id, habit_id, date, is_completed) VALUES (?, ?, ?, ?)");
+            SQLiteStatement insertArchive = hasArchive ? db.compileStatement(
+                "INSERT INTO " + ARCHIVE_TABLE + " (habit_id, year, bits) VALUES (?, ?, ?)") : null;
+
+            long previousId = 0;
+            long previousDate = 0;
+
+            byte type;
+            while ((type = reader.next()) != TYPE_END) {
+                DataInputStream row = reader.rows;
+                for (int i = 0; i < reader.rowCount; i++) {
+                    switch (type) {
+                        case TYPE_HABITS:
+                            insertHabit.bindLong(1, row.readLong());
+                            insertHabit.bindString(2, readString(row));
+                            if (row.readBoolean()) {
+                                insertHabit.bindString(3, readString(row));
+                            } else {
+                                insertHabit.bindNull(3);
+                            }
+                            insertHabit.bindString(4, readString(row));
+                            insertHabit.bindString(5, readString(row));
+                            insertHabit.bindLong(6, row.readLong());
+                            insertHabit.executeInsert();
+                            stats.habits++;
+                            break;
+                        case TYPE_ENTRIES:
+                            previousId += row.readLong();
+                            long habitId = row.readLong();
+                            previousDate += row.readLong();
+                            insertEntry.bindLong(1, previousId);
+                            insertEntry.bindLong(2, habitId);
+                            insertEntry.bindLong(3, previousDate);
+                            insertEntry.bindLong(4, row.readBoolean() ? 1 : 0);
+                            insertEntry.executeInsert();
+                            stats.entries++;
+                            break;
+                        case TYPE_ARCHIVE:
+                            if (insertArchive == null) {
+                                throw new IOException("Backup contains archived history, open the app to upgrade first");
+                            }
+                            insertArchive.bindLong(1, row.readLong());
+                            insertArchive.bindLong(2, row.readInt());
+                            byte[] bits = new byte[row.readShort()];
+                            row.readFully(bits);
+                            insertArchive.bindBlob(3, bits);
+                            insertArchive.executeInsert();
+                            stats.archives++;
+                            break;
+                        default:
+                            throw new IOException("Unknown chunk type " + type);
+                    }
+                }
+            }
+
+            if (stats.habits != reader.totalHabits || stats.entries != reader.totalEntries
+                || stats.archives != reader.totalArchives) {
+                throw new IOException("Backup is truncated");
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        return stats;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int getUserVersion(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA user_version", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static boolean hasTable(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?", new String[]{table});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Buffers rows of one type and flushes them as a compressed, checksummed chunk
+     */
+    private static final class ChunkWriter {
+        final DataOutputStream out;
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream(CHUNK_BYTES + 1024);
+        private final DataOutputStream rawOut = new DataOutputStream(raw);
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32 crc = new CRC32();
+        private byte[] compressed = new byte[CHUNK_BYTES];
+        private byte chunkType = TYPE_END;
+        private int rowCount;
+        private long totalHabits;
+        private long totalEntries;
+        private long totalArchives;
+
+        ChunkWriter(OutputStream output) {
+            this.out = new DataOutputStream(output);
+        }
+
+        DataOutputStream row(byte type) throws IOException {
+            if (type != chunkType || raw.size() >= CHUNK_BYTES) {
+                flush();
+                chunkType = type;
+            }
+            rowCount++;
+            if (type == TYPE_HABITS) {
+                totalHabits++;
+            } else if (type == TYPE_ENTRIES) {
+                totalEntries++;
+            } else {
+                totalArchives++;
+            }
+            return rawOut;
+        }
+
+        void finish() throws IOException {
+            flush();
+            out.writeByte(TYPE_END);
+            out.writeLong(totalHabits);
+            out.writeLong(totalEntries);
+            out.writeLong(totalArchives);
+            out.flush();
+            deflater.end();
+        }
+
+        private void flush() throws IOException {
+            if (rowCount == 0) {
+                return;
+            }
+
+            byte[] rawBytes = raw.toByteArray();
+            crc.reset();
+            crc.update(rawBytes, 0, rawBytes.length);
+
+            deflater.reset();
+            deflater.setInput(rawBytes);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    byte[] larger = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, larger, 0, compressedLength);
+                    compressed = larger;
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+
+            out.writeByte(chunkType);
+            out.writeInt(rowCount);
+            out.writeInt(rawBytes.length);
+            out.writeInt(compressedLength);
+            out.writeInt((int) crc.getValue());
+            out.write(compressed, 0, compressedLength);
+
+            raw.reset();
+            rowCount = 0;
+        }
+    }
+
+    /**
+     * Reads, inflates and verifies one chunk at a time
+     */
+    private static final class ChunkReader {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater();
+        private final CRC32 crc = new CRC32();
+        private byte[] compressed = new byte[CHUNK_BYTES];
+        private byte[] raw = new byte[CHUNK_BYTES * 2];
+        DataInputStream rows;
+        int rowCount;
+        long totalHabits;
+        long totalEntries;
+        long totalArchives;
+
+        ChunkReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        byte next() throws IOException {
+            byte type = in.readByte();
+            if (type == TYPE_END) {
+                totalHabits = in.readLong();
+                totalEntries = in.readLong();
+                totalArchives = in.readLong();
+                inflater.end();
+                return type;
+            }
+
+            rowCount = in.readInt();
+            int rawLength = in.readInt();
+            int compressedLength = in.readInt();
+            int expectedCrc = in.readInt();
+            if (rowCount < 0 || rawLength < 0 || compressedLength < 0
+                || rawLength > CHUNK_BYTES * 16 || compressedLength > CHUNK_BYTES * 16) {
+                throw new IOException("Corrupt chunk header");
+            }
+
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            if (raw.length < rawLength) {
+                raw = new byte[rawLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+
+            try {
+                inflater.reset();
+                inflater.setInput(compressed, 0, compressedLength);
+                int inflated = 0;
+                while (inflated < rawLength && !inflater.finished()) {
+                    int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += count;
+                }
+                if (inflated != rawLength) {
+                    throw new IOException("Corrupt chunk data");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt chunk data", e);
+            }
+
+            crc.reset();
+            crc.update(raw, 0, rawLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            rows = new DataInputStream(new ByteArrayInputStream(raw, 0, rawLength));
+            return type;
+        }
+    }
+}
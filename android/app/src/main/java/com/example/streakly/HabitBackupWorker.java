@@ -0,0 +1,135 @@
+package com.example.streakly;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+/**
+ * WorkManager worker that exports or imports the full habit history with HabitBackup
+ * Runs off the UI thread and streams the database, so large histories never sit in memory at once
+ */
+public class HabitBackupWorker extends Worker {
+    private static final String TAG = "HabitBackupWorker";
+    private static final String WORK_TAG = "habit_backup";
+
+    static final String KEY_MODE = "mode";
+    static final String KEY_PATH = "path";
+    static final String KEY_HABITS = "habits";
+    static final String KEY_ENTRIES = "entries";
+    static final String KEY_ERROR = "error";
+    static final String MODE_EXPORT = "export";
+    static final String MODE_IMPORT = "import";
+
+    public HabitBackupWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Enqueue an export or import; only one backup operation runs at a time
+     */
+    public static UUID enqueue(Context context, String mode, String path) {
+        OneTimeWorkRequest backupWork = new OneTimeWorkRequest.Builder(HabitBackupWorker.class)
+            .addTag(WORK_TAG)
+            .setInputData(new Data.Builder()
+                .putString(KEY_MODE, mode)
+                .putString(KEY_PATH, path)
+                .build())
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_TAG, ExistingWorkPolicy.APPEND_OR_REPLACE, backupWork);
+        Log.d(TAG, "Backup work enqueued: " + mode + " " + path);
+        return backupWork.getId();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String mode = getInputData().getString(KEY_MODE);
+        String path = getInputData().getString(KEY_PATH);
+        if (path == null || !(MODE_EXPORT.equals(mode) || MODE_IMPORT.equals(mode))) {
+            return Result.failure(error("Invalid backup request"));
+        }
+
+        File dbFile = NativeDatabaseHelper.getDatabaseFile(getApplicationContext());
+        if (!dbFile.exists()) {
+            return Result.failure(error("Database file not found"));
+        }
+
+        try {
+            HabitBackup.Stats stats = MODE_EXPORT.equals(mode)
+                ? exportTo(dbFile, new File(path))
+                : importFrom(dbFile, new File(path));
+
+            Log.d(TAG, "Backup " + mode + " completed: " + stats.habits + " habits, " + stats.entries + " entries");
+            return Result.success(new Data.Builder()
+                .putLong(KEY_HABITS, stats.habits)
+                .putLong(KEY_ENTRIES, stats.entries)
+                .build());
+        } catch (Exception e) {
+            Log.e(TAG, "Error during backup " + mode, e);
+            return Result.failure(error(e.getMessage()));
+        }
+    }
+
+    private static HabitBackup.Stats exportTo(File dbFile, File target) throws Exception {
+        // Write next to the target and rename, so a failed export never leaves a partial backup
+        File temp = new File(target.getPath() + ".tmp");
+        // Read-only, so the snapshot is a read transaction and the app keeps writing during the export
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null,
+            SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+        try {
+            HabitBackup.Stats stats;
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024);
+            try {
+                stats = HabitBackup.export(db, output);
+            } finally {
+                output.close();
+            }
+
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not write " + target.getPath());
+            }
+            return stats;
+        } finally {
+            db.close();
+            temp.delete();
+        }
+    }
+
+    private static HabitBackup.Stats importFrom(File dbFile, File source) throws Exception {
+        // Keeps the WAL journal mode Drift set, without the flag Android switches the file back to its default.
+        // No localized collators, or Android adds its android_metadata table to Drift's schema
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READWRITE
+            | SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(source), 64 * 1024);
+            try {
+                return HabitBackup.importFrom(db, input);
+            } finally {
+                input.close();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private static Data error(String message) {
+        return new Data.Builder().putString(KEY_ERROR, message != null ? message : "Unknown error").build();
+    }
+}
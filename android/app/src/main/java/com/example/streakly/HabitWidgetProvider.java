@@ -6,23 +6,88 @@ import android.appwidget.AppWidgetProvider;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.ArrayMap;
+import android.util.SizeF;
+import android.util.SparseArray;
 import android.view.View;
 import android.widget.RemoteViews;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
 public class HabitWidgetProvider extends AppWidgetProvider {
     private static final String ACTION_MARK_COMPLETE = "com.example.streakly.MARK_COMPLETE";
     private static final String EXTRA_HABIT_ID = "habit_id";
     private static final String EXTRA_WIDGET_ID = "widget_id";
+    private static final String WIDGET_TITLE = "Streakly";
+    private static final String DEFAULT_SUBTITLE = "Today's Habits";
+    private static final String EMPTY_PROGRESS = "0/0";
+    static final String NO_HABITS_MESSAGE = "No habits scheduled for today";
+    static final String ALL_DONE_MESSAGE = "All habits done for today!";
+
+    // One thread keeps the renders of a widget in order; tests swap in a direct executor
+    private static final Executor BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static volatile Executor renderExecutor = BACKGROUND_EXECUTOR;
+
+    // appWidgetId -> cached items and click intents, kept for the lifetime of the process
+    private static final SparseArray<WidgetItems> itemCache = new SparseArray<>();
+
+    private static String cachedWidgetDataJson;
+    private static WidgetSnapshot cachedSnapshot;
+    private static int cachedSnapshotLimit;
+    private static String cachedSubtitle;
+    private static String cachedProgress;
+    private static int cachedSubtitleCompleted = -1;
+    private static int cachedSubtitleTotal = -1;
+
+    private static final class WidgetItems {
+        // habitId -> click PendingIntent, shared by every size bucket
+        final SparseArray<PendingIntent> clickIntents = new SparseArray<>();
+        // WidgetLayout bucket -> habitId -> item; list rows and grid cells are different layouts
+        final SparseArray<SparseArray<HabitItem>> buckets = new SparseArray<>();
+
+        SparseArray<HabitItem> bucket(int bucket) {
+            SparseArray<HabitItem> items = buckets.get(bucket);
+            if (items == null) {
+                items = new SparseArray<>();
+                buckets.put(bucket, items);
+            }
+            return items;
+        }
+    }
+
+    private static final class HabitItem {
+        RemoteViews views;
+        String title;
+        boolean isCompleted;
+        int streak;
+    }
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
-        }
+        renderAsync(() -> {
+            // Widgets sharing a configuration share one snapshot
+            Map<String, WidgetSnapshot> snapshots = new HashMap<>();
+            for (int appWidgetId : appWidgetIds) {
+                updateAppWidget(context, appWidgetManager, appWidgetId, snapshots);
+            }
+        });
+    }
+
+    @Override
+    public void onAppWidgetOptionsChanged(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+                                          Bundle newOptions) {
+        // Resized: the size buckets and the number of rows may have changed
+        renderAsync(() -> updateAppWidget(context, appWidgetManager, appWidgetId));
     }
 
     @Override
@@ -36,113 +101,369 @@ public class HabitWidgetProvider extends AppWidgetProvider {
             if (habitId != -1 && widgetId != -1) {
                 // Mark habit as complete and update widget
                 markHabitComplete(context, habitId);
-                updateAppWidget(context, AppWidgetManager.getInstance(context), widgetId);
+                renderAsync(() -> updateAppWidget(context, AppWidgetManager.getInstance(context), widgetId));
+            }
+        }
+    }
+
+    /**
+     * Renders read SQLite (configured snapshots, grid streaks), so the broadcast only hands them to the
+     * render executor and is kept alive with goAsync() until they are done
+     */
+    private void renderAsync(Runnable renders) {
+        PendingResult pendingResult = goAsync();
+        renderExecutor.execute(() -> {
+            try {
+                renders.run();
+            } finally {
+                // Null when called outside a broadcast, e.g. directly from a test
+                if (pendingResult != null) {
+                    pendingResult.finish();
+                }
             }
+        });
+    }
+
+    /**
+     * Re-render one widget on the render executor, for callers on the main thread
+     */
+    static void requestUpdate(Context context, int appWidgetId) {
+        Context appContext = context.getApplicationContext();
+        renderExecutor.execute(() -> updateAppWidget(appContext, AppWidgetManager.getInstance(appContext), appWidgetId));
+    }
+
+    static void setRenderExecutor(Executor executor) {
+        renderExecutor = executor != null ? executor : BACKGROUND_EXECUTOR;
+    }
+
+    static void resetRenderExecutor() {
+        renderExecutor = BACKGROUND_EXECUTOR;
+    }
+
+    /**
+     * The click PendingIntent cached for a habit shown on the widget, null when there is none
+     */
+    static PendingIntent cachedClickIntent(int appWidgetId, int habitId) {
+        synchronized (itemCache) {
+            WidgetItems items = itemCache.get(appWidgetId);
+            return items != null ? items.clickIntents.get(habitId) : null;
+        }
+    }
+
+    /**
+     * The item views cached for a habit in one size bucket, null when there are none
+     */
+    static RemoteViews cachedItemViews(int appWidgetId, int bucket, int habitId) {
+        synchronized (itemCache) {
+            WidgetItems items = itemCache.get(appWidgetId);
+            SparseArray<HabitItem> bucketItems = items != null ? items.buckets.get(bucket) : null;
+            HabitItem item = bucketItems != null ? bucketItems.get(habitId) : null;
+            return item != null ? item.views : null;
+        }
+    }
+
+    /**
+     * Forget every cached item, PendingIntent, snapshot and subtitle, as if the process had restarted.
+     * Robolectric keeps statics across test methods and hands out the same widget ids.
+     */
+    static void resetCachesForTest() {
+        synchronized (itemCache) {
+            itemCache.clear();
+        }
+        synchronized (HabitWidgetProvider.class) {
+            cachedWidgetDataJson = null;
+            cachedSnapshot = null;
+            cachedSnapshotLimit = 0;
+            cachedSubtitle = null;
+            cachedProgress = null;
+            cachedSubtitleCompleted = -1;
+            cachedSubtitleTotal = -1;
         }
     }
 
     static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.habit_widget);
+        updateAppWidget(context, appWidgetManager, appWidgetId, new HashMap<String, WidgetSnapshot>());
+    }
+
+    /**
+     * Renders one RemoteViews per size the launcher may show the widget at. The snapshot is loaded once
+     * with as many habits as the largest of those sizes can show, and streaks only when a grid is shown.
+     * Both may query SQLite, so this runs on the render executor (see renderAsync and requestUpdate).
+     */
+    private static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId,
+                                        Map<String, WidgetSnapshot> snapshots) {
+        Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+        List<SizeF> sizes = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && options != null) {
+            sizes = options.getParcelableArrayList(AppWidgetManager.OPTION_APPWIDGET_SIZES);
+        }
+
+        WidgetLayout[] layouts;
+        if (sizes != null && !sizes.isEmpty()) {
+            layouts = new WidgetLayout[sizes.size()];
+            for (int i = 0; i < layouts.length; i++) {
+                layouts[i] = WidgetLayout.forSize(sizes.get(i).getWidth(), sizes.get(i).getHeight());
+            }
+        } else if (options != null && options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH) > 0) {
+            layouts = new WidgetLayout[] {WidgetLayout.landscape(options), WidgetLayout.portrait(options)};
+        } else {
+            layouts = new WidgetLayout[] {WidgetLayout.DEFAULT};
+        }
+
+        int maxHabits = 0;
+        int maxGridHabits = 0;
+        for (WidgetLayout layout : layouts) {
+            maxHabits = Math.max(maxHabits, layout.maxHabits);
+            if (layout.bucket == WidgetLayout.BUCKET_GRID) {
+                maxGridHabits = Math.max(maxGridHabits, layout.maxHabits);
+            }
+        }
 
+        WidgetSnapshot snapshot;
         try {
-            SharedPreferences prefs = context.getSharedPreferences("FlutterSharedPreferences", Context.MODE_PRIVATE);
-            String widgetDataJson = prefs.getString("flutter.streakly_habits_widget_data", "");
+            snapshot = loadWidgetData(context, WidgetConfig.load(context, appWidgetId), maxHabits, snapshots);
+        } catch (JSONException e) {
+            // Error parsing data, show default message
+            snapshot = null;
+        }
 
-            if (widgetDataJson.isEmpty()) {
-                // Fallback to the old key format if new one doesn't exist
-                widgetDataJson = prefs.getString("streakly_habits_widget_data", "");
+        int[] streaks = null;
+        if (snapshot != null && maxGridHabits > 0) {
+            streaks = NativeDatabaseHelper.getStreaks(context, snapshot.habitIds, Math.min(maxGridHabits, snapshot.size()));
+        }
+
+        RemoteViews views;
+        synchronized (itemCache) {
+            WidgetItems items = itemCache.get(appWidgetId);
+            if (items == null) {
+                items = new WidgetItems();
+                itemCache.put(appWidgetId, items);
             }
 
-            // Final fallback to old widget ID pattern
-            if (widgetDataJson.isEmpty()) {
-                for (int id = 0; id < 10; id++) {
-                    widgetDataJson = prefs.getString("flutter.HabitWidgetPrefs_" + id + ".widget_data", "");
-                    if (!widgetDataJson.isEmpty()) break;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && sizes != null && !sizes.isEmpty()) {
+                // The launcher picks the entry matching the size it currently shows, no update needed on resize
+                Map<SizeF, RemoteViews> sizedViews = new ArrayMap<>(layouts.length);
+                for (int i = 0; i < layouts.length; i++) {
+                    sizedViews.put(sizes.get(i), render(context, layouts[i], snapshot, streaks, items, appWidgetId));
                 }
+                PerfCounters.remoteViews.incrementAndGet();
+                views = new RemoteViews(sizedViews);
+            } else if (layouts.length == 2 && !layouts[0].equals(layouts[1])) {
+                RemoteViews landscape = render(context, layouts[0], snapshot, streaks, items, appWidgetId);
+                RemoteViews portrait = render(context, layouts[1], snapshot, streaks, items, appWidgetId);
+                PerfCounters.remoteViews.incrementAndGet();
+                views = new RemoteViews(landscape, portrait);
+            } else {
+                views = render(context, layouts[0], snapshot, streaks, items, appWidgetId);
             }
 
-            if (!widgetDataJson.isEmpty()) {
-                JSONObject widgetData = new JSONObject(widgetDataJson);
-                JSONArray habitsArray = widgetData.getJSONArray("habits");
-                int totalHabits = widgetData.getInt("totalHabits");
-                int completedHabits = widgetData.getInt("completedHabits");
-
-                // Set header info with progress
-                views.setTextViewText(R.id.widget_title, "Streakly");
-                views.setTextViewText(R.id.widget_subtitle, "Today's Habits (" + completedHabits + "/" + totalHabits + ")");
-
-                // Create individual habit items
-                if (habitsArray.length() > 0) {
-                    // Hide the message text view
-                    views.setViewVisibility(R.id.habits_message, View.GONE);
-                    // Show the habits container
-                    views.setViewVisibility(R.id.habits_container, View.VISIBLE);
-
-                    // Clear all existing views from the container first to prevent duplication
-                    views.removeAllViews(R.id.habits_container);
-
-                    // Add habit items to the container
-                    int maxHabitsToShow = Math.min(habitsArray.length(), 10); // Show max 10 habits
-
-                    for (int i = 0; i < maxHabitsToShow; i++) {
-                        try {
-                            JSONObject habit = habitsArray.getJSONObject(i);
-                            RemoteViews habitItem = createHabitItem(context, habit, appWidgetId);
-                            views.addView(R.id.habits_container, habitItem);
-                        } catch (Exception e) {
-                            System.err.println("Error creating habit item " + i + ": " + e.getMessage());
-                        }
+            // The habit set changed: drop items (and their PendingIntents) that are no longer shown
+            for (int i = items.clickIntents.size() - 1; i >= 0; i--) {
+                if (snapshot == null || !snapshot.containsHabit(items.clickIntents.keyAt(i), maxHabits)) {
+                    items.clickIntents.removeAt(i);
+                }
+            }
+            for (int b = 0; b < items.buckets.size(); b++) {
+                SparseArray<HabitItem> bucketItems = items.buckets.valueAt(b);
+                for (int i = bucketItems.size() - 1; i >= 0; i--) {
+                    if (items.clickIntents.get(bucketItems.keyAt(i)) == null) {
+                        bucketItems.removeAt(i);
                     }
-                } else {
-                    // No habits - show message
-                    views.setViewVisibility(R.id.habits_container, View.GONE);
-                    views.setViewVisibility(R.id.habits_message, View.VISIBLE);
-                    views.setTextViewText(R.id.habits_message, "No habits scheduled for today");
                 }
-            } else {
-                // No data available
-                views.setTextViewText(R.id.widget_title, "Streakly");
-                views.setTextViewText(R.id.widget_subtitle, "Today's Habits");
-                views.setTextViewText(R.id.habits_message, "Create your first habit!");
             }
-        } catch (JSONException e) {
-            // Error parsing data, show default message
-            views.setTextViewText(R.id.widget_title, "Streakly");
-            views.setTextViewText(R.id.widget_subtitle, "Today's Habits");
-            views.setTextViewText(R.id.habits_message, "Create your first habit!");
         }
 
         // Update the widget
+        PerfCounters.widgetUpdates.incrementAndGet();
         appWidgetManager.updateAppWidget(appWidgetId, views);
     }
 
-    private static RemoteViews createHabitItem(Context context, JSONObject habit, int widgetId) throws JSONException {
-        RemoteViews habitItem = new RemoteViews(context.getPackageName(), R.layout.habit_widget_item);
+    private static RemoteViews render(Context context, WidgetLayout layout, WidgetSnapshot snapshot, int[] streaks,
+                                      WidgetItems items, int appWidgetId) {
+        PerfCounters.remoteViews.incrementAndGet();
+
+        if (layout.bucket == WidgetLayout.BUCKET_COMPACT) {
+            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.habit_widget_compact);
+            views.setTextViewText(R.id.widget_title, WIDGET_TITLE);
+            views.setTextViewText(R.id.compact_count,
+                snapshot != null ? getProgress(snapshot.completedHabits, snapshot.totalHabits) : EMPTY_PROGRESS);
+            return views;
+        }
+
+        boolean grid = layout.bucket == WidgetLayout.BUCKET_GRID;
+        RemoteViews views = new RemoteViews(context.getPackageName(),
+            grid ? R.layout.habit_widget_grid : R.layout.habit_widget);
+        views.setTextViewText(R.id.widget_title, WIDGET_TITLE);
+
+        if (snapshot == null) {
+            // No data available
+            views.setTextViewText(R.id.widget_subtitle, DEFAULT_SUBTITLE);
+            views.setTextViewText(R.id.habits_message, "Create your first habit!");
+            return views;
+        }
+
+        // Set header info with progress
+        views.setTextViewText(R.id.widget_subtitle, getSubtitle(snapshot.completedHabits, snapshot.totalHabits));
 
-        int habitId = habit.getInt("id");
-        String title = habit.getString("title");
-        boolean isCompleted = habit.getBoolean("isCompletedToday");
+        int count = Math.min(snapshot.size(), layout.maxHabits);
+        if (count == 0) {
+            // Nothing to list: either nothing is scheduled, or hideCompleted hid every habit
+            views.setViewVisibility(R.id.habits_container, View.GONE);
+            views.setViewVisibility(R.id.habits_message, View.VISIBLE);
+            views.setTextViewText(R.id.habits_message,
+                snapshot.totalHabits > 0 && snapshot.completedHabits >= snapshot.totalHabits
+                    ? ALL_DONE_MESSAGE : NO_HABITS_MESSAGE);
+            return views;
+        }
 
-        habitItem.setTextViewText(R.id.habit_title, title);
+        // Hide the message text view
+        views.setViewVisibility(R.id.habits_message, View.GONE);
+        // Show the habits container
+        views.setViewVisibility(R.id.habits_container, View.VISIBLE);
 
-        // Configure icon based on completion status
-        if (isCompleted) {
-            habitItem.setImageViewResource(R.id.mark_complete_button, R.drawable.ic_check_circle);
+        // Clear all existing views from the containers first to prevent duplication
+        if (grid) {
+            views.removeAllViews(R.id.habits_column_start);
+            views.removeAllViews(R.id.habits_column_end);
         } else {
-            habitItem.setImageViewResource(R.id.mark_complete_button, R.drawable.ic_circle_outline);
+            views.removeAllViews(R.id.habits_container);
+        }
+
+        SparseArray<HabitItem> bucketItems = items.bucket(layout.bucket);
+        for (int i = 0; i < count; i++) {
+            int habitId = snapshot.habitIds[i];
+            PendingIntent clickIntent = items.clickIntents.get(habitId);
+            if (clickIntent == null) {
+                clickIntent = createMarkCompleteIntent(context, appWidgetId, habitId);
+                items.clickIntents.put(habitId, clickIntent);
+            }
+
+            RemoteViews item = getHabitItem(context, bucketItems, grid, habitId, clickIntent,
+                snapshot.titles[i], snapshot.completed[i], grid ? streaks[i] : 0);
+            if (grid) {
+                // Fill the two columns row by row
+                views.addView(i % WidgetLayout.GRID_COLUMNS == 0 ? R.id.habits_column_start : R.id.habits_column_end, item);
+            } else {
+                views.addView(R.id.habits_container, item);
+            }
+        }
+
+        return views;
+    }
+
+    /**
+     * Configured widgets get their own filtered snapshot from the database,
+     * default widgets keep using the global data written by Flutter.
+     * Only the first maxHabits habits are materialized.
+     */
+    private static WidgetSnapshot loadWidgetData(Context context, WidgetConfig config, int maxHabits,
+                                                 Map<String, WidgetSnapshot> snapshots) throws JSONException {
+        if (!config.isDefault()) {
+            String snapshotKey = config.key() + '#' + maxHabits;
+            WidgetSnapshot snapshot = snapshots.get(snapshotKey);
+            if (snapshot == null) {
+                snapshot = WidgetSnapshot.fromJson(NativeDatabaseHelper.getWidgetSnapshot(context, config, maxHabits), maxHabits);
+                snapshots.put(snapshotKey, snapshot);
+            }
+            return snapshot;
         }
 
-        // Set up click listener for mark as complete button
+        SharedPreferences prefs = context.getSharedPreferences("FlutterSharedPreferences", Context.MODE_PRIVATE);
+        String widgetDataJson = prefs.getString("flutter.streakly_habits_widget_data", "");
+
+        if (widgetDataJson.isEmpty()) {
+            // Fallback to the old key format if new one doesn't exist
+            widgetDataJson = prefs.getString("streakly_habits_widget_data", "");
+        }
+
+        // Final fallback to old widget ID pattern
+        if (widgetDataJson.isEmpty()) {
+            for (int id = 0; id < 10; id++) {
+                widgetDataJson = prefs.getString("flutter.HabitWidgetPrefs_" + id + ".widget_data", "");
+                if (!widgetDataJson.isEmpty()) break;
+            }
+        }
+
+        if (widgetDataJson.isEmpty()) {
+            return null;
+        }
+
+        // Same data as the last render and enough habits decoded: skip parsing
+        synchronized (HabitWidgetProvider.class) {
+            if (!widgetDataJson.equals(cachedWidgetDataJson) || cachedSnapshotLimit < maxHabits) {
+                cachedSnapshot = WidgetSnapshot.fromJson(new JSONObject(widgetDataJson), maxHabits);
+                cachedSnapshotLimit = maxHabits;
+                cachedWidgetDataJson = widgetDataJson;
+            }
+            return cachedSnapshot;
+        }
+    }
+
+    private static synchronized void updateProgressText(int completedHabits, int totalHabits) {
+        if (completedHabits != cachedSubtitleCompleted || totalHabits != cachedSubtitleTotal) {
+            cachedProgress = completedHabits + "/" + totalHabits;
+            cachedSubtitle = "Today's Habits (" + cachedProgress + ")";
+            cachedSubtitleCompleted = completedHabits;
+            cachedSubtitleTotal = totalHabits;
+        }
+    }
+
+    private static synchronized String getSubtitle(int completedHabits, int totalHabits) {
+        updateProgressText(completedHabits, totalHabits);
+        return cachedSubtitle;
+    }
+
+    private static synchronized String getProgress(int completedHabits, int totalHabits) {
+        updateProgressText(completedHabits, totalHabits);
+        return cachedProgress;
+    }
+
+    /**
+     * Item views are reused while the habit's title, state and streak are unchanged, and its click
+     * PendingIntent is created once per widget and habit (creating one is an IPC to system_server)
+     */
+    private static RemoteViews getHabitItem(Context context, SparseArray<HabitItem> items, boolean grid, int habitId,
+                                            PendingIntent clickIntent, String title, boolean isCompleted, int streak) {
+        HabitItem item = items.get(habitId);
+        if (item == null) {
+            item = new HabitItem();
+            items.put(habitId, item);
+        }
+
+        if (item.views == null || item.isCompleted != isCompleted || item.streak != streak || !title.equals(item.title)) {
+            PerfCounters.remoteViews.incrementAndGet();
+            RemoteViews habitItem = new RemoteViews(context.getPackageName(),
+                grid ? R.layout.habit_widget_grid_item : R.layout.habit_widget_item);
+            habitItem.setTextViewText(R.id.habit_title, title);
+            if (grid) {
+                habitItem.setTextViewText(R.id.habit_streak, streak + " day streak");
+            }
+
+            // Configure icon based on completion status
+            habitItem.setImageViewResource(R.id.mark_complete_button,
+                isCompleted ? R.drawable.ic_check_circle : R.drawable.ic_circle_outline);
+            habitItem.setOnClickPendingIntent(R.id.mark_complete_button, clickIntent);
+
+            item.views = habitItem;
+            item.title = title;
+            item.isCompleted = isCompleted;
+            item.streak = streak;
+        }
+
+        return item.views;
+    }
+
+    private static PendingIntent createMarkCompleteIntent(Context context, int widgetId, int habitId) {
+        // The data Uri keeps PendingIntents of different widgets showing the same habit apart
         Intent markCompleteIntent = new Intent(context, HabitWidgetProvider.class);
         markCompleteIntent.setAction(ACTION_MARK_COMPLETE);
+        markCompleteIntent.setData(Uri.parse("streakly://widget/" + widgetId + "/habit/" + habitId));
         markCompleteIntent.putExtra(EXTRA_HABIT_ID, habitId);
         markCompleteIntent.putExtra(EXTRA_WIDGET_ID, widgetId);
 
-        PendingIntent markCompletePendingIntent = PendingIntent.getBroadcast(
+        PerfCounters.pendingIntents.incrementAndGet();
+        return PendingIntent.getBroadcast(
                 context, habitId + 1000, markCompleteIntent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
-        habitItem.setOnClickPendingIntent(R.id.mark_complete_button, markCompletePendingIntent);
-
-        return habitItem;
     }
 
     private void markHabitComplete(Context context, int habitId) {
@@ -167,6 +488,16 @@ public class HabitWidgetProvider extends AppWidgetProvider {
         android.util.Log.d("HabitWidgetProvider", "Widget enabled - daily refresh scheduled");
     }
 
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        WidgetConfig.delete(context, appWidgetIds);
+        synchronized (itemCache) {
+            for (int appWidgetId : appWidgetIds) {
+                itemCache.remove(appWidgetId);
+            }
+        }
+    }
+
     @Override
     public void onDisabled(Context context) {
         // Called when the last widget is removed
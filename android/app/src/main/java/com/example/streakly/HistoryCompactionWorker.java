@@ -0,0 +1,266 @@
+package com.example.streakly;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.io.File;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkManager worker that compacts old habit history while the device is idle and charging.
+ * Completed entries older than the horizon are folded into per-habit, per-year bitmaps in
+ * habit_history_archive_table (same layout as HistoryBitmap in Dart), and rows that only
+ * record an un-toggle are deleted since readers treat a missing row as "not completed".
+ */
+public class HistoryCompactionWorker extends Worker {
+    private static final String TAG = "HistoryCompactionWorker";
+    private static final String WORK_TAG = "history_compaction";
+    private static final String PREFS_NAME = "FlutterSharedPreferences";
+    private static final String HORIZON_DAYS_KEY = "flutter.history_compaction_horizon_days";
+
+    // Must stay above the 365 day window calculateStreak reads from habit_entries_table
+    static final int MIN_HORIZON_DAYS = 400;
+    static final int DEFAULT_HORIZON_DAYS = 730;
+    static final int BYTES_PER_YEAR = 46;
+
+    public HistoryCompactionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedule the periodic compaction (kept across reboots by WorkManager)
+     */
+    public static void schedule(Context context) {
+        try {
+            Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiresCharging(true);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                constraints.setRequiresDeviceIdle(true);
+            }
+
+            PeriodicWorkRequest compactionWork = new PeriodicWorkRequest.Builder(
+                HistoryCompactionWorker.class, 7, TimeUnit.DAYS)
+                .addTag(WORK_TAG)
+                .setConstraints(constraints.build())
+                .build();
+
+            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_TAG,
+                ExistingPeriodicWorkPolicy.KEEP,
+                compactionWork
+            );
+
+            Log.d(TAG, "History compaction scheduled");
+        } catch (Exception e) {
+            Log.e(TAG, "Error scheduling history compaction", e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Log.d(TAG, "History compaction worker started");
+
+        try {
+            Context context = getApplicationContext();
+            File dbFile = NativeDatabaseHelper.getDatabaseFile(context);
+            if (!dbFile.exists()) {
+                Log.w(TAG, "Database file not found - nothing to compact");
+                return Result.success();
+            }
+
+            long horizonMillis = getHorizonStartMillis(context);
+            long todayMillis = getStartOfDayMillis(AppClock.calendar());
+
+            // Keeps the WAL journal mode Drift set, without the flag Android switches the file back to its default.
+            // No localized collators, or Android adds its android_metadata table to Drift's schema
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(
+                dbFile.getPath(),
+                null,
+                SQLiteDatabase.OPEN_READWRITE | SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING
+                    | SQLiteDatabase.NO_LOCALIZED_COLLATORS
+            );
+
+            try {
+                if (!hasArchiveTable(db)) {
+                    // Flutter has not migrated the schema yet
+                    Log.w(TAG, "Archive table missing - skipping compaction");
+                    return Result.success();
+                }
+
+                int folded = compact(db, horizonMillis / 1000, todayMillis / 1000);
+                vacuum(db);
+
+                Log.d(TAG, "History compaction completed (" + folded + " entries folded)");
+            } finally {
+                db.close();
+            }
+
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error in history compaction worker", e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Fold completed entries older than the horizon and drop un-toggled rows in one transaction.
+     * Dates are stored by Drift as unix seconds of the local midnight.
+     */
+    static int compact(SQLiteDatabase db, long horizonSeconds, long todaySeconds) {
+        int folded = 0;
+
+        db.beginTransaction();
+        try {
+            // Entries of deleted habits are never read
+            db.execSQL("DELETE FROM habit_entries_table WHERE habit_id NOT IN (SELECT id FROM habits_table)");
+            db.execSQL("DELETE FROM habit_history_archive_table WHERE habit_id NOT IN (SELECT id FROM habits_table)");
+
+            // Today's row may still be toggled by the app, so leave it alone
+            db.execSQL("DELETE FROM habit_entries_table WHERE is_completed = 0 AND date < ?",
+                new Object[]{todaySeconds});
+
+            Map<Long, byte[]> bitmaps = new HashMap<>();
+            Calendar calendar = AppClock.calendar();
+
+            Cursor cursor = db.rawQuery(
+                "SELECT habit_id, date FROM habit_entries_table WHERE is_completed = 1 AND date < ?",
+                new String[]{String.valueOf(horizonSeconds)});
+            try {
+                while (cursor.moveToNext()) {
+                    int habitId = cursor.getInt(0);
+                    calendar.setTimeInMillis(cursor.getLong(1) * 1000);
+                    int year = calendar.get(Calendar.YEAR);
+                    int dayIndex = calendar.get(Calendar.DAY_OF_YEAR) - 1;
+
+                    long key = ((long) habitId << 16) | year;
+                    byte[] bits = bitmaps.get(key);
+                    if (bits == null) {
+                        bits = loadArchive(db, habitId, year);
+                        bitmaps.put(key, bits);
+                    }
+                    bits[dayIndex >> 3] |= (byte) (1 << (dayIndex & 7));
+                    folded++;
+                }
+            } finally {
+                cursor.close();
+            }
+
+            ContentValues values = new ContentValues();
+            for (Map.Entry<Long, byte[]> entry : bitmaps.entrySet()) {
+                values.clear();
+                values.put("habit_id", (int) (entry.getKey() >> 16));
+                values.put("year", (int) (entry.getKey() & 0xFFFF));
+                values.put("bits", entry.getValue());
+                db.insertWithOnConflict("habit_history_archive_table", null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+            }
+
+            db.execSQL("DELETE FROM habit_entries_table WHERE is_completed = 1 AND date < ?",
+                new Object[]{horizonSeconds});
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        return folded;
+    }
+
+    private static byte[] loadArchive(SQLiteDatabase db, int habitId, int year) {
+        byte[] bits = new byte[BYTES_PER_YEAR];
+
+        Cursor cursor = db.rawQuery(
+            "SELECT bits FROM habit_history_archive_table WHERE habit_id = ? AND year = ?",
+            new String[]{String.valueOf(habitId), String.valueOf(year)});
+        try {
+            if (cursor.moveToFirst()) {
+                byte[] existing = cursor.getBlob(0);
+                System.arraycopy(existing, 0, bits, 0, Math.min(existing.length, BYTES_PER_YEAR));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return bits;
+    }
+
+    /**
+     * Reclaim freed pages. The first run switches the file to incremental auto-vacuum,
+     * which requires one full VACUUM; later runs only release the free list.
+     */
+    static void vacuum(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA auto_vacuum", null);
+        int mode = 0;
+        try {
+            if (cursor.moveToFirst()) {
+                mode = cursor.getInt(0);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (mode == 2) {
+            // rawQuery is needed because incremental_vacuum returns rows
+            Cursor vacuumCursor = db.rawQuery("PRAGMA incremental_vacuum", null);
+            try {
+                while (vacuumCursor.moveToNext()) {
+                    // Each step frees one page
+                }
+            } finally {
+                vacuumCursor.close();
+            }
+        } else {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+        }
+    }
+
+    private static boolean hasArchiveTable(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery(
+            "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'habit_history_archive_table'",
+            null);
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long getHorizonStartMillis(Context context) {
+        int horizonDays = DEFAULT_HORIZON_DAYS;
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            // shared_preferences stores Dart ints as longs
+            horizonDays = (int) prefs.getLong(HORIZON_DAYS_KEY, DEFAULT_HORIZON_DAYS);
+        } catch (ClassCastException e) {
+            Log.w(TAG, "Invalid compaction horizon, using default");
+        }
+
+        Calendar calendar = AppClock.calendar();
+        calendar.add(Calendar.DAY_OF_MONTH, -Math.max(horizonDays, MIN_HORIZON_DAYS));
+        return getStartOfDayMillis(calendar);
+    }
+
+    private static long getStartOfDayMillis(Calendar calendar) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -7,12 +7,9 @@ import android.util.Log;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.io.File;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Native Android helper to access Flutter's SQLite database directly
@@ -22,10 +19,33 @@ public class NativeDatabaseHelper {
     private static final String TAG = "NativeDatabaseHelper";
     private static final String DB_NAME = "streakly.db";
 
+    // "HH:mm" reminder as minutes of the day, missing reminders sort last (same as the Flutter widget data)
+    private static final String REMINDER_MINUTES_SQL =
+        "CASE WHEN h.reminder_time = '' THEN 1439"
+            + " WHEN instr(h.reminder_time, ':') = 0 THEN CAST(h.reminder_time AS INTEGER) * 60"
+            + " ELSE CAST(substr(h.reminder_time, 1, instr(h.reminder_time, ':') - 1) AS INTEGER) * 60"
+            + " + CAST(substr(h.reminder_time, instr(h.reminder_time, ':') + 1) AS INTEGER) END";
+
     /**
      * Get today's habits directly from SQLite database (without Flutter)
      */
     public static JSONObject getTodayHabitsFromDatabase(Context context) {
+        return getWidgetSnapshot(context, WidgetConfig.DEFAULT);
+    }
+
+    /**
+     * Build today's snapshot for one widget configuration with a single query.
+     * Filtering and sorting (completed last, then reminder time) happen in SQLite;
+     * only the first WidgetSnapshot.MAX_HABITS rows are materialized, the counts cover all of them.
+     */
+    public static JSONObject getWidgetSnapshot(Context context, WidgetConfig config) {
+        return getWidgetSnapshot(context, config, WidgetSnapshot.MAX_HABITS);
+    }
+
+    /**
+     * Same as above, materializing at most maxHabits rows (the most the widget's size can show)
+     */
+    static JSONObject getWidgetSnapshot(Context context, WidgetConfig config, int maxHabits) {
         JSONObject result = new JSONObject();
 
         try {
@@ -43,57 +63,57 @@ public class NativeDatabaseHelper {
             );
 
             // Get today's weekday (1=Monday, 7=Sunday)
-            Calendar calendar = Calendar.getInstance();
+            Calendar calendar = AppClock.calendar();
             int todayWeekday = calendar.get(Calendar.DAY_OF_WEEK);
             // Convert to Flutter's weekday format (1=Monday, 7=Sunday)
             int flutterWeekday = (todayWeekday == Calendar.SUNDAY) ? 7 : todayWeekday - 1;
 
-            // Get today's date for completion check
-            String todayDate = getTodayDateString();
+            // Drift stores dates as unix seconds of the local midnight
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            long todaySeconds = calendar.getTimeInMillis() / 1000;
 
-            // Query habits that should be active today
-            String habitsQuery = "SELECT id, title, description, reminder_time, target_days FROM habits_table";
-            Cursor habitsCursor = db.rawQuery(habitsQuery, null);
+            List<String> args = new ArrayList<>();
+            String habitsQuery = buildSnapshotQuery(config, todaySeconds, flutterWeekday, args);
+            PerfCounters.dbStatements.incrementAndGet();
+            Cursor habitsCursor = db.rawQuery(habitsQuery, args.toArray(new String[0]));
 
             JSONArray habitsArray = new JSONArray();
+            int totalCount = 0;
             int completedCount = 0;
 
-            while (habitsCursor.moveToNext()) {
-                int habitId = habitsCursor.getInt(0);
-                String title = habitsCursor.getString(1);
-                String reminderTime = habitsCursor.getString(3);
-                String targetDays = habitsCursor.getString(4);
-
-                // Check if habit is scheduled for today
-                if (isHabitActiveToday(targetDays, flutterWeekday)) {
-                    // Check if habit is completed today
-                    boolean isCompleted = isHabitCompletedToday(db, habitId, todayDate);
-                    
-                    JSONObject habit = new JSONObject();
-                    habit.put("id", habitId);
-                    habit.put("title", title);
-                    habit.put("isCompletedToday", isCompleted);
-                    
-                    habitsArray.put(habit);
-                    
+            try {
+                while (habitsCursor.moveToNext()) {
+                    boolean isCompleted = habitsCursor.getInt(2) == 1;
+                    totalCount++;
                     if (isCompleted) {
                         completedCount++;
                     }
-                    
-                    Log.d(TAG, "Habit: " + title + " (completed: " + isCompleted + ")");
+
+                    if ((isCompleted && config.hideCompleted) || habitsArray.length() >= maxHabits) {
+                        continue;
+                    }
+
+                    JSONObject habit = new JSONObject();
+                    habit.put("id", habitsCursor.getInt(0));
+                    habit.put("title", habitsCursor.getString(1));
+                    habit.put("isCompletedToday", isCompleted);
+                    habitsArray.put(habit);
                 }
+            } finally {
+                habitsCursor.close();
+                db.close();
             }
 
-            habitsCursor.close();
-            db.close();
-
             // Build result JSON
             result.put("habits", habitsArray);
-            result.put("totalHabits", habitsArray.length());
+            result.put("totalHabits", totalCount);
             result.put("completedHabits", completedCount);
-            result.put("lastUpdated", new Date().toString());
+            result.put("lastUpdated", AppClock.date().toString());
 
-            Log.d(TAG, "Successfully queried " + habitsArray.length() + " habits for today (" + completedCount + " completed)");
+            Log.d(TAG, "Successfully queried " + totalCount + " habits for today (" + completedCount + " completed)");
             
         } catch (Exception e) {
             Log.e(TAG, "Error querying database", e);
@@ -103,68 +123,210 @@ public class NativeDatabaseHelper {
         return result;
     }
 
-    private static File getDatabaseFile(Context context) {
-        // Flutter stores database in app's documents directory
-        File documentsDir = new File(context.getFilesDir().getParent() + "/app_flutter/");
-        File dbFile = new File(documentsDir, DB_NAME);
+    /**
+     * Every habit (id and title, by title) for the widget configuration screen
+     */
+    static JSONArray getAllHabits(Context context) {
+        JSONArray habits = new JSONArray();
 
-        // If not found, try alternative locations
-        if (!dbFile.exists()) {
-            // Try in files directory
-            dbFile = new File(context.getFilesDir(), DB_NAME);
+        try {
+            File dbFile = getDatabaseFile(context);
+            if (!dbFile.exists()) {
+                return habits;
+            }
+
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            try {
+                PerfCounters.dbStatements.incrementAndGet();
+                Cursor cursor = db.rawQuery("SELECT id, title FROM habits_table ORDER BY title COLLATE NOCASE, id", null);
+                try {
+                    while (cursor.moveToNext()) {
+                        JSONObject habit = new JSONObject();
+                        habit.put("id", cursor.getInt(0));
+                        habit.put("title", cursor.getString(1));
+                        habits.put(habit);
+                    }
+                } finally {
+                    cursor.close();
+                }
+            } finally {
+                db.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading habits", e);
         }
 
-        if (!dbFile.exists()) {
-            // Try in databases directory
-            File databasesDir = context.getDatabasePath("dummy").getParentFile();
-            dbFile = new File(databasesDir, DB_NAME);
+        return habits;
+    }
+
+    /**
+     * Current streak of the first count habits with one query, counted the same way as
+     * HabitEntriesDao.calculateStreak: consecutive completed target days back from today within a year.
+     * Entries older than the compaction horizon are never needed (the horizon is over a year).
+     */
+    static int[] getStreaks(Context context, int[] habitIds, int count) {
+        int[] streaks = new int[count];
+        if (count == 0) {
+            return streaks;
         }
 
-        Log.d(TAG, "Database file path: " + dbFile.getPath() + " (exists: " + dbFile.exists() + ")");
-        return dbFile;
+        try {
+            File dbFile = getDatabaseFile(context);
+            if (!dbFile.exists()) {
+                return streaks;
+            }
+
+            Calendar today = AppClock.calendar();
+            long yearAgoSeconds = today.getTimeInMillis() / 1000 - 365L * 24 * 60 * 60;
+            today.set(Calendar.HOUR_OF_DAY, 0);
+            today.set(Calendar.MINUTE, 0);
+            today.set(Calendar.SECOND, 0);
+            today.set(Calendar.MILLISECOND, 0);
+
+            StringBuilder query = new StringBuilder()
+                .append("SELECT e.habit_id, e.date, h.target_days FROM habit_entries_table e")
+                .append(" JOIN habits_table h ON h.id = e.habit_id")
+                .append(" WHERE e.is_completed = 1 AND e.date > ? AND e.habit_id IN (");
+            String[] args = new String[count + 1];
+            args[0] = String.valueOf(yearAgoSeconds);
+            for (int i = 0; i < count; i++) {
+                query.append(i == 0 ? "?" : ", ?");
+                args[i + 1] = String.valueOf(habitIds[i]);
+            }
+            query.append(") ORDER BY e.habit_id, e.date DESC");
+
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            PerfCounters.dbStatements.incrementAndGet();
+            Cursor cursor = db.rawQuery(query.toString(), args);
+
+            try {
+                long[] dates = new long[366];
+                boolean more = cursor.moveToNext();
+                while (more) {
+                    int habitId = cursor.getInt(0);
+                    String targetDays = cursor.getString(2);
+                    int dateCount = 0;
+                    do {
+                        if (dateCount < dates.length) {
+                            dates[dateCount++] = cursor.getLong(1);
+                        }
+                        more = cursor.moveToNext();
+                    } while (more && cursor.getInt(0) == habitId);
+
+                    int streak = countStreak(today, parseTargetDays(targetDays), dates, dateCount);
+                    for (int i = 0; i < count; i++) {
+                        if (habitIds[i] == habitId) {
+                            streaks[i] = streak;
+                        }
+                    }
+                }
+            } finally {
+                cursor.close();
+                db.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error querying streaks", e);
+        }
+
+        return streaks;
     }
 
-    private static boolean isHabitActiveToday(String targetDays, int todayWeekday) {
-        if (targetDays == null || targetDays.isEmpty()) {
-            return false;
+    private static int countStreak(Calendar today, boolean[] targetDays, long[] dates, int dateCount) {
+        Calendar checkDate = (Calendar) today.clone();
+        int streak = 0;
+        int entryIndex = 0;
+
+        for (int day = 0; day <= 365; day++) {
+            int weekday = checkDate.get(Calendar.DAY_OF_WEEK);
+            // Flutter's weekday format (1=Monday, 7=Sunday)
+            if (targetDays[weekday == Calendar.SUNDAY ? 7 : weekday - 1]) {
+                long checkSeconds = checkDate.getTimeInMillis() / 1000;
+                while (entryIndex < dateCount && dates[entryIndex] > checkSeconds) {
+                    entryIndex++;
+                }
+                if (entryIndex == dateCount || dates[entryIndex] != checkSeconds) {
+                    // Scheduled day without a completion, the streak is broken
+                    break;
+                }
+                streak++;
+                entryIndex++;
+            }
+            checkDate.add(Calendar.DAY_OF_MONTH, -1);
         }
 
-        String[] days = targetDays.split(",");
-        for (String day : days) {
+        return streak;
+    }
+
+    private static boolean[] parseTargetDays(String targetDays) {
+        boolean[] days = new boolean[8];
+        for (String day : targetDays.split(",")) {
             try {
-                int dayNum = Integer.parseInt(day.trim());
-                if (dayNum == todayWeekday) {
-                    return true;
+                int weekday = Integer.parseInt(day.trim());
+                if (weekday >= 1 && weekday <= 7) {
+                    days[weekday] = true;
                 }
             } catch (NumberFormatException e) {
-                Log.w(TAG, "Invalid day format: " + day);
+                // Ignored, same as int.tryParse in the Flutter DAO
             }
         }
-        return false;
+        return days;
     }
 
-    private static boolean isHabitCompletedToday(SQLiteDatabase db, int habitId, String todayDate) {
-        try {
-            // Query habit_entries_table for today's completion
-            String query = "SELECT is_completed FROM habit_entries_table WHERE habit_id = ? AND date(date) = ?";
-            Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(habitId), todayDate});
+    private static String buildSnapshotQuery(WidgetConfig config, long todaySeconds, int flutterWeekday, List<String> args) {
+        StringBuilder query = new StringBuilder()
+            .append("SELECT h.id, h.title, EXISTS (SELECT 1 FROM habit_entries_table e")
+            .append(" WHERE e.habit_id = h.id AND e.date = ? AND e.is_completed = 1) AS done, ")
+            .append(REMINDER_MINUTES_SQL).append(" AS minutes")
+            .append(" FROM habits_table h")
+            .append(" WHERE (',' || h.target_days || ',') LIKE ?");
+        args.add(String.valueOf(todaySeconds));
+        args.add("%," + flutterWeekday + ",%");
 
-            boolean isCompleted = false;
-            if (cursor.moveToFirst()) {
-                isCompleted = cursor.getInt(0) == 1;
+        if (config.habitIds.length > 0) {
+            query.append(" AND h.id IN (");
+            for (int i = 0; i < config.habitIds.length; i++) {
+                query.append(i == 0 ? "?" : ", ?");
+                args.add(String.valueOf(config.habitIds[i]));
             }
+            query.append(')');
+        }
 
-            cursor.close();
-            return isCompleted;
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking completion for habit " + habitId, e);
-            return false;
+        if (config.hasWindow()) {
+            // Inlined as integer literals: rawQuery binds arguments as TEXT, and the CASE expression has no
+            // affinity to convert them back, so INTEGER < TEXT would hold for every row
+            int start = config.windowStartMinutes;
+            int end = config.windowEndMinutes;
+            // A window like 22:00-02:00 wraps past midnight
+            query.append(start <= end
+                ? " AND " + REMINDER_MINUTES_SQL + " BETWEEN " + start + " AND " + end
+                : " AND (" + REMINDER_MINUTES_SQL + " >= " + start + " OR " + REMINDER_MINUTES_SQL + " <= " + end + ")");
         }
+
+        query.append(config.sortOrder == WidgetConfig.SORT_TITLE
+            ? " ORDER BY done, h.title COLLATE NOCASE, h.id"
+            : " ORDER BY done, minutes, h.id");
+        return query.toString();
     }
 
-    private static String getTodayDateString() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        return sdf.format(new Date());
+    static File getDatabaseFile(Context context) {
+        // Flutter stores database in app's documents directory
+        File documentsDir = new File(context.getFilesDir().getParent() + "/app_flutter/");
+        File dbFile = new File(documentsDir, DB_NAME);
+
+        // If not found, try alternative locations
+        if (!dbFile.exists()) {
+            // Try in files directory
+            dbFile = new File(context.getFilesDir(), DB_NAME);
+        }
+
+        if (!dbFile.exists()) {
+            // Try in databases directory
+            File databasesDir = context.getDatabasePath("dummy").getParentFile();
+            dbFile = new File(databasesDir, DB_NAME);
+        }
+
+        Log.d(TAG, "Database file path: " + dbFile.getPath() + " (exists: " + dbFile.exists() + ")");
+        return dbFile;
     }
 
     private static JSONObject createEmptyResult() {
@@ -173,7 +335,7 @@ public class NativeDatabaseHelper {
             result.put("habits", new JSONArray());
             result.put("totalHabits", 0);
             result.put("completedHabits", 0);
-            result.put("lastUpdated", new Date().toString());
+            result.put("lastUpdated", AppClock.date().toString());
             return result;
         } catch (Exception e) {
             Log.e(TAG, "Error creating empty result", e);
@@ -198,6 +360,7 @@ public class NativeDatabaseHelper {
             );
 
             // Try a simple query
+            PerfCounters.dbStatements.incrementAndGet();
             Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM habits_table", null);
             boolean accessible = cursor.moveToFirst();
             cursor.close();
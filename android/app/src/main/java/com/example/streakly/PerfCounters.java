@@ -0,0 +1,24 @@
+package com.example.streakly;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cheap counters for the widget pipeline, read by the day-simulation harness
+ * Incrementing an AtomicLong is all they cost in production
+ */
+final class PerfCounters {
+    static final AtomicLong dbStatements = new AtomicLong();
+    static final AtomicLong widgetUpdates = new AtomicLong();
+    static final AtomicLong remoteViews = new AtomicLong();
+    static final AtomicLong pendingIntents = new AtomicLong();
+
+    private PerfCounters() {
+    }
+
+    static void reset() {
+        dbStatements.set(0);
+        widgetUpdates.set(0);
+        remoteViews.set(0);
+        pendingIntents.set(0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.streakly;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import java.util.Arrays;
+
+/**
+ * Per-appWidgetId configuration: habit subset, sort order, hide-completed and time-of-day window
+ * Widgets sharing the same configuration share one snapshot (see key())
+ */
+public final class WidgetConfig {
+    private static final String TAG = "WidgetConfig";
+    private static final String PREFS_NAME = "HabitWidgetConfig";
+
+    public static final int SORT_REMINDER_TIME = 0; // Completed last, then reminder time (same as the Flutter widget data)
+    public static final int SORT_TITLE = 1;
+
+    public static final int NO_WINDOW = -1;
+
+    public static final WidgetConfig DEFAULT = new WidgetConfig(new int[0], SORT_REMINDER_TIME, false, NO_WINDOW, NO_WINDOW);
+
+    final int[] habitIds; // Sorted, empty = all habits
+    final int sortOrder;
+    final boolean hideCompleted;
+    final int windowStartMinutes; // Reminder time window in minutes of the day, may wrap past midnight
+    final int windowEndMinutes;
+
+    public WidgetConfig(int[] habitIds, int sortOrder, boolean hideCompleted, int windowStartMinutes, int windowEndMinutes) {
+        this.habitIds = habitIds.clone();
+        Arrays.sort(this.habitIds);
+        this.sortOrder = sortOrder;
+        this.hideCompleted = hideCompleted;
+        this.windowStartMinutes = windowStartMinutes;
+        this.windowEndMinutes = windowEndMinutes;
+    }
+
+    boolean isDefault() {
+        return key().equals(DEFAULT.key());
+    }
+
+    boolean hasWindow() {
+        return windowStartMinutes != NO_WINDOW && windowEndMinutes != NO_WINDOW;
+    }
+
+    /**
+     * Canonical form, used both for storage and to de-duplicate snapshots
+     */
+    String key() {
+        StringBuilder key = new StringBuilder();
+        key.append(sortOrder).append(';')
+            .append(hideCompleted ? 1 : 0).append(';')
+            .append(windowStartMinutes).append(';')
+            .append(windowEndMinutes).append(';');
+        for (int i = 0; i < habitIds.length; i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(habitIds[i]);
+        }
+        return key.toString();
+    }
+
+    static WidgetConfig fromKey(String key) {
+        try {
+            String[] parts = key.split(";", -1);
+            int[] ids;
+            if (parts[4].isEmpty()) {
+                ids = new int[0];
+            } else {
+                String[] idParts = parts[4].split(",");
+                ids = new int[idParts.length];
+                for (int i = 0; i < idParts.length; i++) {
+                    ids[i] = Integer.parseInt(idParts[i]);
+                }
+            }
+            return new WidgetConfig(ids, Integer.parseInt(parts[0]), "1".equals(parts[1]),
+                Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Invalid widget config: " + key);
+            return DEFAULT;
+        }
+    }
+
+    public static WidgetConfig load(Context context, int appWidgetId) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String key = prefs.getString(String.valueOf(appWidgetId), null);
+        return key != null ? fromKey(key) : DEFAULT;
+    }
+
+    public static void save(Context context, int appWidgetId, WidgetConfig config) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putString(String.valueOf(appWidgetId), config.key()).apply();
+    }
+
+    public static void delete(Context context, int[] appWidgetIds) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+        for (int appWidgetId : appWidgetIds) {
+            editor.remove(String.valueOf(appWidgetId));
+        }
+        editor.apply();
+    }
+}
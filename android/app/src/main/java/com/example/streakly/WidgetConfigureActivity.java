@@ -0,0 +1,182 @@
+package com.example.streakly;
+
+import android.app.Activity;
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.Switch;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Configuration screen the launcher opens when a widget is added (and from "reconfigure" on Android 12+).
+ * Stores the habit subset, sort order, hide-completed flag and reminder time window as the widget's WidgetConfig.
+ */
+public class WidgetConfigureActivity extends Activity {
+    private static final String TAG = "WidgetConfigureActivity";
+
+    // Reminder time windows in minutes of the day, same order as R.array.widget_configure_time_windows
+    private static final int[][] TIME_WINDOWS = {
+        {WidgetConfig.NO_WINDOW, WidgetConfig.NO_WINDOW},
+        {5 * 60, 12 * 60},
+        {12 * 60, 17 * 60},
+        {17 * 60, 23 * 60},
+    };
+
+    private int appWidgetId = AppWidgetManager.INVALID_APPWIDGET_ID;
+    private final List<int[]> timeWindows = new ArrayList<>(Arrays.asList(TIME_WINDOWS));
+    private int[] habitIds = new int[0];
+
+    private ListView habitList;
+    private Spinner sortOrder;
+    private Spinner timeWindow;
+    private Switch hideCompleted;
+    private Button saveButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        // Backing out of the screen must not add the widget
+        setResult(RESULT_CANCELED);
+
+        Bundle extras = getIntent().getExtras();
+        if (extras != null) {
+            appWidgetId = extras.getInt(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID);
+        }
+        if (appWidgetId == AppWidgetManager.INVALID_APPWIDGET_ID) {
+            finish();
+            return;
+        }
+
+        setTitle(R.string.widget_configure_title);
+        setContentView(R.layout.widget_configure);
+        habitList = findViewById(R.id.habit_list);
+        sortOrder = findViewById(R.id.sort_order);
+        timeWindow = findViewById(R.id.time_window);
+        hideCompleted = findViewById(R.id.hide_completed);
+        saveButton = findViewById(R.id.save_button);
+
+        // Reconfiguring starts from the current settings
+        WidgetConfig config = WidgetConfig.load(this, appWidgetId);
+
+        ArrayAdapter<CharSequence> sortOrders = ArrayAdapter.createFromResource(this,
+            R.array.widget_configure_sort_orders, android.R.layout.simple_spinner_item);
+        sortOrders.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        sortOrder.setAdapter(sortOrders);
+        sortOrder.setSelection(config.sortOrder == WidgetConfig.SORT_TITLE ? 1 : 0);
+
+        List<CharSequence> windowLabels = new ArrayList<>(Arrays.asList(
+            getResources().getTextArray(R.array.widget_configure_time_windows)));
+        int windowIndex = config.hasWindow() ? findTimeWindow(config.windowStartMinutes, config.windowEndMinutes) : 0;
+        if (windowIndex < 0) {
+            // A window set from the app that isn't one of the presets
+            timeWindows.add(new int[] {config.windowStartMinutes, config.windowEndMinutes});
+            windowLabels.add(formatMinutes(config.windowStartMinutes) + "-" + formatMinutes(config.windowEndMinutes));
+            windowIndex = timeWindows.size() - 1;
+        }
+        ArrayAdapter<CharSequence> windows = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, windowLabels);
+        windows.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        timeWindow.setAdapter(windows);
+        timeWindow.setSelection(windowIndex);
+
+        hideCompleted.setChecked(config.hideCompleted);
+        saveButton.setOnClickListener(v -> save());
+
+        // The habit list is read from SQLite, keep it off the main thread
+        Context appContext = getApplicationContext();
+        new Thread(() -> {
+            JSONArray habits = NativeDatabaseHelper.getAllHabits(appContext);
+            runOnUiThread(() -> showHabits(habits, config));
+        }, TAG).start();
+    }
+
+    private void showHabits(JSONArray habits, WidgetConfig config) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+
+        int[] ids = new int[habits.length()];
+        List<String> titles = new ArrayList<>(habits.length());
+        try {
+            for (int i = 0; i < habits.length(); i++) {
+                JSONObject habit = habits.getJSONObject(i);
+                ids[i] = habit.getInt("id");
+                titles.add(habit.getString("title"));
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Error reading habits", e);
+            ids = new int[0];
+            titles.clear();
+        }
+        habitIds = ids;
+
+        if (habitIds.length == 0) {
+            habitList.setVisibility(View.GONE);
+            findViewById(R.id.empty_message).setVisibility(View.VISIBLE);
+        } else {
+            habitList.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice, titles));
+            for (int i = 0; i < habitIds.length; i++) {
+                // config.habitIds is sorted, empty = all habits (left unchecked)
+                habitList.setItemChecked(i, Arrays.binarySearch(config.habitIds, habitIds[i]) >= 0);
+            }
+        }
+        saveButton.setEnabled(true);
+    }
+
+    private void save() {
+        SparseBooleanArray checked = habitList.getCheckedItemPositions();
+        List<Integer> selected = new ArrayList<>();
+        for (int i = 0; i < habitIds.length; i++) {
+            if (checked != null && checked.get(i)) {
+                selected.add(habitIds[i]);
+            }
+        }
+
+        // Every habit checked is the same as none: keep following habits created later
+        int[] ids = new int[selected.size() == habitIds.length ? 0 : selected.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = selected.get(i);
+        }
+
+        int[] window = timeWindows.get(timeWindow.getSelectedItemPosition());
+        WidgetConfig config = new WidgetConfig(ids,
+            sortOrder.getSelectedItemPosition() == 1 ? WidgetConfig.SORT_TITLE : WidgetConfig.SORT_REMINDER_TIME,
+            hideCompleted.isChecked(), window[0], window[1]);
+        WidgetConfig.save(this, appWidgetId, config);
+
+        // The launcher sends no update for a widget with a configuration screen, render it now
+        HabitWidgetProvider.requestUpdate(this, appWidgetId);
+
+        setResult(RESULT_OK, new Intent().putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId));
+        finish();
+    }
+
+    private int findTimeWindow(int startMinutes, int endMinutes) {
+        for (int i = 0; i < timeWindows.size(); i++) {
+            if (timeWindows.get(i)[0] == startMinutes && timeWindows.get(i)[1] == endMinutes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String formatMinutes(int minutes) {
+        return String.format(Locale.US, "%02d:%02d", minutes / 60, minutes % 60);
+    }
+}
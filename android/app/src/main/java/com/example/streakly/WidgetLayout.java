@@ -0,0 +1,81 @@
+package com.example.streakly;
+
+import android.appwidget.AppWidgetManager;
+import android.os.Bundle;
+
+/**
+ * Size bucket of one widget size and how many habits fit in it
+ * Small widgets ask the snapshot for fewer habits, so they do less query, decode and IPC work
+ */
+final class WidgetLayout {
+    static final int BUCKET_COMPACT = 0; // Completed/total count only
+    static final int BUCKET_LIST = 1;    // One row per habit
+    static final int BUCKET_GRID = 2;    // Two columns of cells with the current streak
+    static final int BUCKET_COUNT = 3;
+
+    static final int GRID_COLUMNS = 2;
+
+    // Measured from habit_widget*.xml: 12dp padding, title and subtitle lines
+    private static final int HEADER_DP = 76;
+    private static final int LIST_ROW_DP = 43;
+    private static final int GRID_ROW_DP = 58;
+
+    private static final int COMPACT_MAX_HEIGHT_DP = HEADER_DP + LIST_ROW_DP;
+    private static final int COMPACT_MAX_WIDTH_DP = 180;
+    private static final int GRID_MIN_WIDTH_DP = 300;
+
+    /**
+     * Used when the launcher didn't report a size: the original list of up to MAX_HABITS rows
+     */
+    static final WidgetLayout DEFAULT = new WidgetLayout(BUCKET_LIST, WidgetSnapshot.MAX_HABITS);
+
+    final int bucket;
+    final int maxHabits;
+
+    private WidgetLayout(int bucket, int maxHabits) {
+        this.bucket = bucket;
+        this.maxHabits = maxHabits;
+    }
+
+    static WidgetLayout forSize(float widthDp, float heightDp) {
+        if (widthDp <= 0 || heightDp <= 0) {
+            return DEFAULT;
+        }
+        if (heightDp < COMPACT_MAX_HEIGHT_DP || widthDp < COMPACT_MAX_WIDTH_DP) {
+            return new WidgetLayout(BUCKET_COMPACT, 0);
+        }
+        if (widthDp >= GRID_MIN_WIDTH_DP && heightDp >= HEADER_DP + 2 * GRID_ROW_DP) {
+            int rows = (int) (heightDp - HEADER_DP) / GRID_ROW_DP;
+            return new WidgetLayout(BUCKET_GRID, Math.min(rows * GRID_COLUMNS, WidgetSnapshot.MAX_HABITS));
+        }
+        int rows = (int) (heightDp - HEADER_DP) / LIST_ROW_DP;
+        return new WidgetLayout(BUCKET_LIST, Math.min(rows, WidgetSnapshot.MAX_HABITS));
+    }
+
+    /**
+     * Portrait uses the minimum width and maximum height reported by the launcher, landscape the opposite
+     */
+    static WidgetLayout portrait(Bundle options) {
+        return forSize(options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH),
+            options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT));
+    }
+
+    static WidgetLayout landscape(Bundle options) {
+        return forSize(options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH),
+            options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof WidgetLayout)) {
+            return false;
+        }
+        WidgetLayout layout = (WidgetLayout) other;
+        return bucket == layout.bucket && maxHabits == layout.maxHabits;
+    }
+
+    @Override
+    public int hashCode() {
+        return bucket * 31 + maxHabits;
+    }
+}
@@ -45,7 +45,7 @@ public class WidgetRefreshScheduler {
             );
 
             // Calculate next midnight
-            Calendar calendar = Calendar.getInstance();
+            Calendar calendar = AppClock.calendar();
             calendar.add(Calendar.DAY_OF_MONTH, 1); // Next day
             calendar.set(Calendar.HOUR_OF_DAY, 0);  // Midnight
             calendar.set(Calendar.MINUTE, 0);
@@ -0,0 +1,64 @@
+package com.example.streakly;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Parsed widget data ("habits", "totalHabits", "completedHabits") in primitive arrays
+ * Parsed once per data change so renders don't repeat JSONObject lookups
+ */
+final class WidgetSnapshot {
+    static final int MAX_HABITS = 10; // Rows the widget can show
+
+    final int[] habitIds;
+    final String[] titles;
+    final boolean[] completed;
+    final int totalHabits;
+    final int completedHabits;
+
+    private WidgetSnapshot(int[] habitIds, String[] titles, boolean[] completed, int totalHabits, int completedHabits) {
+        this.habitIds = habitIds;
+        this.titles = titles;
+        this.completed = completed;
+        this.totalHabits = totalHabits;
+        this.completedHabits = completedHabits;
+    }
+
+    int size() {
+        return habitIds.length;
+    }
+
+    /**
+     * Whether the habit is among the first count habits (the ones a widget of that size shows)
+     */
+    boolean containsHabit(int habitId, int count) {
+        for (int i = 0; i < Math.min(count, habitIds.length); i++) {
+            if (habitIds[i] == habitId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decode only the first maxHabits habits, the counts still cover all of them
+     */
+    static WidgetSnapshot fromJson(JSONObject widgetData, int maxHabits) throws JSONException {
+        JSONArray habitsArray = widgetData.getJSONArray("habits");
+        int count = Math.min(habitsArray.length(), Math.min(maxHabits, MAX_HABITS));
+
+        int[] habitIds = new int[count];
+        String[] titles = new String[count];
+        boolean[] completed = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            JSONObject habit = habitsArray.getJSONObject(i);
+            habitIds[i] = habit.getInt("id");
+            titles[i] = habit.getString("title");
+            completed[i] = habit.getBoolean("isCompletedToday");
+        }
+
+        return new WidgetSnapshot(habitIds, titles, completed,
+            widgetData.getInt("totalHabits"), widgetData.getInt("completedHabits"));
+    }
+}
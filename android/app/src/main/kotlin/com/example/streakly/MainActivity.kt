@@ -5,6 +5,9 @@ import io.flutter.embedding.engine.FlutterEngine
 import io.flutter.plugin.common.MethodChannel
 import android.os.Bundle
 import android.content.Intent
+import androidx.lifecycle.Observer
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
 
 class MainActivity: FlutterActivity() {
     private val HABIT_WIDGET_CHANNEL = "com.example.streakly/widget"
@@ -12,6 +15,9 @@ class MainActivity: FlutterActivity() {
     override fun configureFlutterEngine(flutterEngine: FlutterEngine) {
         super.configureFlutterEngine(flutterEngine)
 
+        // Periodically fold old history into the archive while idle and charging
+        HistoryCompactionWorker.schedule(this)
+
         MethodChannel(flutterEngine.dartExecutor.binaryMessenger, HABIT_WIDGET_CHANNEL).setMethodCallHandler { call, result ->
             when (call.method) {
                 "getInitialHabitAction" -> {
@@ -26,6 +32,52 @@ class MainActivity: FlutterActivity() {
                         result.success(null)
                     }
                 }
+                "setWidgetConfiguration" -> {
+                    val appWidgetId = call.argument<Int>("appWidgetId")
+                    if (appWidgetId == null) {
+                        result.error("INVALID_ARGUMENT", "appWidgetId is required", null)
+                    } else {
+                        val config = WidgetConfig(
+                            (call.argument<List<Int>>("habitIds") ?: emptyList()).toIntArray(),
+                            call.argument<Int>("sortOrder") ?: WidgetConfig.SORT_REMINDER_TIME,
+                            call.argument<Boolean>("hideCompleted") ?: false,
+                            call.argument<Int>("windowStartMinutes") ?: WidgetConfig.NO_WINDOW,
+                            call.argument<Int>("windowEndMinutes") ?: WidgetConfig.NO_WINDOW
+                        )
+                        WidgetConfig.save(this, appWidgetId, config)
+                        HabitWidgetProvider.requestUpdate(this, appWidgetId)
+                        result.success(null)
+                    }
+                }
+                "exportHistory", "importHistory" -> {
+                    val path = call.argument<String>("path")
+                    if (path == null) {
+                        result.error("INVALID_ARGUMENT", "path is required", null)
+                    } else {
+                        val mode = if (call.method == "exportHistory") HabitBackupWorker.MODE_EXPORT else HabitBackupWorker.MODE_IMPORT
+                        val workId = HabitBackupWorker.enqueue(this, mode, path)
+                        val workInfo = WorkManager.getInstance(this).getWorkInfoByIdLiveData(workId)
+
+                        // Reply once the worker finishes; the observer removes itself so the reply is sent only once.
+                        // Not tied to the activity lifecycle: a rotation or a long export in the background
+                        // must still complete the Dart future
+                        workInfo.observeForever(object : Observer<WorkInfo?> {
+                            override fun onChanged(value: WorkInfo?) {
+                                if (value == null || !value.state.isFinished) return
+                                workInfo.removeObserver(this)
+
+                                if (value.state == WorkInfo.State.SUCCEEDED) {
+                                    result.success(mapOf(
+                                        "habits" to value.outputData.getLong(HabitBackupWorker.KEY_HABITS, 0),
+                                        "entries" to value.outputData.getLong(HabitBackupWorker.KEY_ENTRIES, 0)
+                                    ))
+                                } else {
+                                    result.error("BACKUP_FAILED", value.outputData.getString(HabitBackupWorker.KEY_ERROR), null)
+                                }
+                            }
+                        })
+                    }
+                }
                 else -> {
                     result.notImplemented()
                 }
@@ -0,0 +1,235 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.AlarmManager;
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.Intent;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.testing.TestWorkerBuilder;
+import androidx.work.testing.WorkManagerTestInitHelper;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowLog;
+
+/**
+ * Deterministic day-simulation harness for the native widget pipeline.
+ * Replays simulated days (midnight rollover, daily worker, rapid widget taps, reboots) against
+ * a seeded database and fails when latency, allocation, statement or update budgets are exceeded.
+ *
+ * Defaults are sized for CI; a full year is run with e.g.
+ * ./gradlew :app:testDebugUnitTest --tests '*DaySimulationHarnessTest' -Dstreakly.harness.days=365
+ *
+ * Statement and widget update budgets are counts that follow from the code (2 statements per refresh:
+ * the accessibility check and the snapshot query) and are always enforced; an N+1 query or a per-habit
+ * snapshot fails them on any machine.
+ *
+ * Latency and allocation budgets depend on the machine, so they are only enforced once set from a
+ * recorded run. Baseline: not recorded yet. To record one, run the harness at its defaults on CI,
+ * copy the summary it prints here, and set each budget to that run's p95 with 2x headroom, either as
+ * the default below or with -Dstreakly.harness.refreshP95Ms, tapP95Ms and refreshAllocBytes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class DaySimulationHarnessTest {
+    private static final long SEED = Long.getLong("streakly.harness.seed", 20240101L);
+    private static final int HABITS = Integer.getInteger("streakly.harness.habits", 1000);
+    private static final int DAYS = Integer.getInteger("streakly.harness.days", 30);
+    private static final int TAPS_PER_DAY = Integer.getInteger("streakly.harness.taps", 5);
+    private static final int REBOOT_EVERY_DAYS = Integer.getInteger("streakly.harness.rebootEvery", 7);
+
+    // Budgets (p95 in milliseconds, per-operation totals otherwise); 0 = no baseline recorded, not enforced
+    private static final long REFRESH_P95_BUDGET_MS = Long.getLong("streakly.harness.refreshP95Ms", 0L);
+    private static final long TAP_P95_BUDGET_MS = Long.getLong("streakly.harness.tapP95Ms", 0L);
+    private static final long REFRESH_ALLOC_BUDGET_BYTES = Long.getLong("streakly.harness.refreshAllocBytes", 0L);
+    private static final long STATEMENTS_PER_REFRESH_BUDGET = Long.getLong("streakly.harness.statementsPerRefresh", 2L);
+    private static final long WIDGET_UPDATES_PER_DAY_BUDGET = Long.getLong("streakly.harness.widgetUpdatesPerDay", 4L + TAPS_PER_DAY);
+
+    private Context context;
+    private SQLiteDatabase db;
+    private SyntheticHabitData data;
+    private Calendar simulatedNow;
+    private int widgetId;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        Locale.setDefault(Locale.US);
+
+        simulatedNow = Calendar.getInstance();
+        simulatedNow.clear();
+        simulatedNow.set(2025, Calendar.JANUARY, 1, 0, 0, 0);
+        AppClock.setTimeSource(() -> simulatedNow.getTimeInMillis());
+        // Renders are part of the measured tap, so run them on the calling thread
+        HabitWidgetProvider.setRenderExecutor(Runnable::run);
+
+        context = ApplicationProvider.getApplicationContext();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context);
+        executor = Executors.newSingleThreadExecutor();
+
+        data = new SyntheticHabitData(SEED, HABITS, 0.6);
+        db = SyntheticHabitData.createDatabase(context);
+        data.insertHabits(db, simulatedNow.getTimeInMillis());
+
+        widgetId = shadowOf(AppWidgetManager.getInstance(context))
+            .createWidget(HabitWidgetProvider.class, R.layout.habit_widget);
+        HabitWidgetProvider.resetCachesForTest();
+        PerfCounters.reset();
+    }
+
+    @After
+    public void tearDown() {
+        AppClock.reset();
+        HabitWidgetProvider.resetRenderExecutor();
+        executor.shutdownNow();
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void simulatedDaysStayWithinBudgets() {
+        List<Long> refreshNanos = new ArrayList<>();
+        List<Long> tapNanos = new ArrayList<>();
+        List<Long> refreshAllocations = new ArrayList<>();
+        long maxStatementsPerRefresh = 0;
+        long maxWidgetUpdatesPerDay = 0;
+
+        HabitWidgetProvider provider = new HabitWidgetProvider();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        ShadowAlarmManager shadowAlarmManager = shadowOf(alarmManager);
+
+        for (int day = 0; day < DAYS; day++) {
+            long widgetUpdatesBefore = PerfCounters.widgetUpdates.get();
+
+            // Midnight rollover: alarm fires, next alarm must target the following midnight
+            simulatedNow.add(Calendar.SECOND, 1);
+            Intent alarm = new Intent(context, WidgetRefreshScheduler.DailyRefreshReceiver.class)
+                .setAction("com.example.streakly.DAILY_WIDGET_REFRESH");
+            new WidgetRefreshScheduler.DailyRefreshReceiver().onReceive(context, alarm);
+            assertEquals("alarm should target the next midnight",
+                SyntheticHabitData.startOfDay(simulatedNow) + 24L * 60 * 60 * 1000,
+                shadowAlarmManager.peekNextScheduledAlarm().getTriggerAtMs());
+
+            long statementsBefore = PerfCounters.dbStatements.get();
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            TestWorkerBuilder.from(context, DailyWidgetRefreshWorker.class, executor).build().doWork();
+            refreshNanos.add(System.nanoTime() - start);
+            refreshAllocations.add(allocatedBytes() - allocatedBefore);
+            maxStatementsPerRefresh = Math.max(maxStatementsPerRefresh, PerfCounters.dbStatements.get() - statementsBefore);
+
+            // Regular in-app use during the day
+            simulatedNow.set(Calendar.HOUR_OF_DAY, 8);
+            data.insertDay(db, simulatedNow);
+
+            // Rapid widget taps: the app writes the entry, then the widget refreshes and re-renders
+            for (int tap = 0; tap < TAPS_PER_DAY; tap++) {
+                simulatedNow.add(Calendar.SECOND, 2);
+                int habitId = data.nextHabitId();
+                SyntheticHabitData.markCompleted(db, habitId, simulatedNow, data.nextBoolean());
+
+                Intent tapIntent = new Intent(context, HabitWidgetProvider.class)
+                    .setAction("com.example.streakly.MARK_COMPLETE")
+                    .putExtra("habit_id", habitId)
+                    .putExtra("widget_id", widgetId);
+
+                start = System.nanoTime();
+                DailyWidgetRefreshWorker.performNativeDataRefresh(context);
+                provider.onReceive(context, tapIntent);
+                tapNanos.add(System.nanoTime() - start);
+            }
+
+            if (REBOOT_EVERY_DAYS > 0 && day % REBOOT_EVERY_DAYS == REBOOT_EVERY_DAYS - 1) {
+                new WidgetRefreshScheduler.BootReceiver()
+                    .onReceive(context, new Intent(Intent.ACTION_BOOT_COMPLETED));
+            }
+
+            shadowOf(Looper.getMainLooper()).idle();
+            ShadowLog.clear();
+
+            maxWidgetUpdatesPerDay = Math.max(maxWidgetUpdatesPerDay, PerfCounters.widgetUpdates.get() - widgetUpdatesBefore);
+
+            // Advance to the next midnight
+            simulatedNow.setTimeInMillis(SyntheticHabitData.startOfDay(simulatedNow));
+            simulatedNow.add(Calendar.DAY_OF_MONTH, 1);
+        }
+
+        long totalStatements = PerfCounters.dbStatements.get();
+        long totalWidgetUpdates = PerfCounters.widgetUpdates.get();
+
+        long refreshP95 = percentileMillis(refreshNanos, 95);
+        long tapP95 = percentileMillis(tapNanos, 95);
+        long refreshAllocP95 = percentile(refreshAllocations, 95);
+
+        System.out.println(String.format(Locale.US,
+            "Day simulation: %d habits x %d days (seed %d)%n"
+                + "  refresh   p50=%dms p95=%dms p99=%dms alloc p95=%dKB%n"
+                + "  tap       p50=%dms p95=%dms p99=%dms%n"
+                + "  statements total=%d max/refresh=%d%n"
+                + "  widget updates total=%d max/day=%d%n"
+                + "  RemoteViews total=%d PendingIntents total=%d",
+            HABITS, DAYS, SEED,
+            percentileMillis(refreshNanos, 50), refreshP95, percentileMillis(refreshNanos, 99), refreshAllocP95 >> 10,
+            percentileMillis(tapNanos, 50), tapP95, percentileMillis(tapNanos, 99),
+            totalStatements, maxStatementsPerRefresh,
+            totalWidgetUpdates, maxWidgetUpdatesPerDay,
+            PerfCounters.remoteViews.get(), PerfCounters.pendingIntents.get()));
+
+        assertWithinBudget("refresh p95 " + refreshP95 + "ms", refreshP95, REFRESH_P95_BUDGET_MS);
+        assertWithinBudget("tap p95 " + tapP95 + "ms", tapP95, TAP_P95_BUDGET_MS);
+        assertWithinBudget("refresh allocations " + refreshAllocP95 + "B", refreshAllocP95, REFRESH_ALLOC_BUDGET_BYTES);
+        assertTrue("statements per refresh " + maxStatementsPerRefresh + " over budget",
+            maxStatementsPerRefresh <= STATEMENTS_PER_REFRESH_BUDGET);
+        assertTrue("widget updates per day " + maxWidgetUpdatesPerDay + " over budget",
+            maxWidgetUpdatesPerDay <= WIDGET_UPDATES_PER_DAY_BUDGET);
+    }
+
+    private static void assertWithinBudget(String measured, long value, long budget) {
+        if (budget > 0) {
+            assertTrue(measured + " over budget", value <= budget);
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long percentileMillis(List<Long> nanos, int percentile) {
+        return percentile(nanos, percentile) / 1_000_000;
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Round-trip, corruption, bounded heap and throughput benchmark of the streaming backup format.
+ * The heap and throughput benchmarks seed a large history and only run when its size is given,
+ * e.g. -Dstreakly.benchmark.entries=1000000. Export and import must then stay within
+ * -Dstreakly.benchmark.peakHeapMb of live heap (default 4MB: one 2MB cursor window plus the
+ * 64KB raw and compressed chunk buffers, independent of the history size).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HabitBackupTest {
+    private static final int HABITS = 1000;
+    private static final double COMPLETION_RATE = 0.6;
+    private static final long BENCHMARK_ENTRIES = Long.getLong("streakly.benchmark.entries", 0L);
+    private static final long PEAK_HEAP_BUDGET_MB = Long.getLong("streakly.benchmark.peakHeapMb", 4L);
+
+    private Context context;
+    private File sourceFile;
+    private SQLiteDatabase source;
+    private SQLiteDatabase target;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        context = ApplicationProvider.getApplicationContext();
+        sourceFile = new File(context.getCacheDir(), "source.db");
+        source = SyntheticHabitData.createDatabase(sourceFile);
+        target = SyntheticHabitData.createDatabase(new File(context.getCacheDir(), "target.db"));
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        target.close();
+    }
+
+    @Test
+    public void roundTripRestoresEveryRow() throws Exception {
+        seed(HABITS, 30);
+        source.execSQL("UPDATE habits_table SET description = 'Before breakfast' WHERE id % 3 = 0");
+        source.execSQL("INSERT INTO habit_history_archive_table (habit_id, year, bits) VALUES (1, 2022, ?)",
+            new Object[]{new byte[HistoryCompactionWorker.BYTES_PER_YEAR]});
+
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        HabitBackup.Stats exported = exportSource(backup);
+        HabitBackup.Stats imported = HabitBackup.importFrom(target, new ByteArrayInputStream(backup.toByteArray()));
+
+        assertEquals(exported.habits, imported.habits);
+        assertEquals(exported.entries, imported.entries);
+        assertEquals(1, imported.archives);
+        assertTableEquals("SELECT id, title, description, reminder_time, target_days, created_at FROM habits_table ORDER BY id");
+        assertTableEquals("SELECT id, habit_id, date, is_completed FROM habit_entries_table ORDER BY id");
+        assertTableEquals("SELECT habit_id, year, hex(bits) FROM habit_history_archive_table ORDER BY habit_id, year");
+    }
+
+    @Test
+    public void exportIsASnapshotThatDoesNotBlockWriters() throws Exception {
+        seed(HABITS, 30);
+        // Drift runs the app database in WAL mode
+        assertTrue(source.enableWriteAheadLogging());
+        long habits = count(source, "habits_table");
+        long entries = count(source, "habit_entries_table");
+
+        // The app keeps writing while the backup streams: every write commits right away (a held write
+        // lock would fail it with "database is locked") and none of them reaches the backup
+        final int[] writes = {0};
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        OutputStream output = new FilterOutputStream(backup) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                source.execSQL("INSERT INTO habits_table (title, reminder_time, target_days, created_at) "
+                    + "VALUES ('Added during export', '08:00', '1', 0)");
+                source.execSQL("INSERT INTO habit_entries_table (habit_id, date, is_completed) VALUES (1, 0, 1)");
+                writes[0]++;
+                out.write(b, off, len);
+            }
+        };
+        HabitBackup.Stats exported = exportSource(output);
+
+        assertTrue(writes[0] > 0);
+        assertEquals(habits, exported.habits);
+        assertEquals(entries, exported.entries);
+        HabitBackup.Stats imported = HabitBackup.importFrom(target, new ByteArrayInputStream(backup.toByteArray()));
+        assertEquals(habits, imported.habits);
+        assertEquals(entries, imported.entries);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exportRejectsAReadWriteConnection() throws Exception {
+        HabitBackup.export(source, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void corruptBackupLeavesDatabaseUnchanged() throws Exception {
+        seed(50, 10);
+        ByteArrayOutputStream backup = new ByteArrayOutputStream();
+        exportSource(backup);
+
+        target.execSQL("INSERT INTO habits_table (title, reminder_time, target_days, created_at) VALUES ('Keep', '08:00', '1', 0)");
+
+        byte[] corrupt = backup.toByteArray();
+        corrupt[corrupt.length / 2] ^= 0x5A;
+        try {
+            HabitBackup.importFrom(target, new ByteArrayInputStream(corrupt));
+            fail("Corrupt backup was imported");
+        } catch (IOException expected) {
+            // Checksum or inflate failure
+        }
+
+        assertEquals(1, count(target, "habits_table"));
+        assertEquals(0, count(target, "habit_entries_table"));
+    }
+
+    @Test
+    public void benchmarkPeakHeap() throws Exception {
+        assumeTrue("set -Dstreakly.benchmark.entries to run the benchmark", BENCHMARK_ENTRIES > 0);
+        seedEntries(BENCHMARK_ENTRIES);
+        File backupFile = new File(context.getCacheDir(), "bounded.streakly");
+
+        // Live heap (sampled after a collection), so garbage from the row loop doesn't count
+        HeapSampler sampler = new HeapSampler(true);
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(backupFile), 64 * 1024);
+        try {
+            exportSource(output);
+        } finally {
+            output.close();
+        }
+        long exportPeak = sampler.stop();
+
+        sampler = new HeapSampler(true);
+        InputStream input = new BufferedInputStream(new FileInputStream(backupFile), 64 * 1024);
+        try {
+            HabitBackup.importFrom(target, input);
+        } finally {
+            input.close();
+        }
+        long importPeak = sampler.stop();
+
+        assertTableEquals("SELECT count(*), sum(id), sum(habit_id * date), sum(is_completed) FROM habit_entries_table");
+        assertTrue("export peak live heap " + (exportPeak >> 10) + "KB over budget", exportPeak <= PEAK_HEAP_BUDGET_MB << 20);
+        assertTrue("import peak live heap " + (importPeak >> 10) + "KB over budget", importPeak <= PEAK_HEAP_BUDGET_MB << 20);
+    }
+
+    @Test
+    public void benchmarkEntries() throws Exception {
+        assumeTrue("set -Dstreakly.benchmark.entries to run the benchmark", BENCHMARK_ENTRIES > 0);
+        seedEntries(BENCHMARK_ENTRIES);
+        long entries = count(source, "habit_entries_table");
+        File backupFile = new File(context.getCacheDir(), "benchmark.streakly");
+
+        // Timed without forced collections, so the peak includes garbage not yet collected
+        HeapSampler sampler = new HeapSampler(false);
+        long start = System.nanoTime();
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(backupFile), 64 * 1024);
+        try {
+            exportSource(output);
+        } finally {
+            output.close();
+        }
+        long exportNanos = System.nanoTime() - start;
+        long exportPeak = sampler.stop();
+
+        sampler = new HeapSampler(false);
+        start = System.nanoTime();
+        InputStream input = new BufferedInputStream(new FileInputStream(backupFile), 64 * 1024);
+        try {
+            HabitBackup.importFrom(target, input);
+        } finally {
+            input.close();
+        }
+        long importNanos = System.nanoTime() - start;
+        long importPeak = sampler.stop();
+
+        assertEquals(entries, count(target, "habit_entries_table"));
+        assertTableEquals("SELECT count(*), sum(id), sum(habit_id * date), sum(is_completed) FROM habit_entries_table");
+
+        System.out.println(String.format(Locale.US,
+            "Backup benchmark: %d entries, file %dKB (%.1f bytes/entry)%n"
+                + "  export %d ms (%.0f entries/s), peak heap +%dMB%n"
+                + "  import %d ms (%.0f entries/s), peak heap +%dMB",
+            entries, backupFile.length() >> 10, backupFile.length() / (double) entries,
+            exportNanos / 1_000_000, entries / (exportNanos / 1e9), exportPeak >> 20,
+            importNanos / 1_000_000, entries / (importNanos / 1e9), importPeak >> 20));
+    }
+
+    /**
+     * Export the source database the way HabitBackupWorker does, from its own read-only connection
+     */
+    private HabitBackup.Stats exportSource(OutputStream output) throws IOException {
+        SQLiteDatabase reader = SQLiteDatabase.openDatabase(sourceFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            return HabitBackup.export(reader, output);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void seedEntries(long entries) {
+        seed(HABITS, (int) Math.ceil(entries / (HABITS * (COMPLETION_RATE + 0.05))));
+    }
+
+    private void seed(int habits, int days) {
+        SyntheticHabitData data = new SyntheticHabitData(7L, habits, COMPLETION_RATE);
+        Calendar day = Calendar.getInstance();
+        day.clear();
+        day.set(2020, Calendar.JANUARY, 1);
+
+        data.insertHabits(source, day.getTimeInMillis());
+        for (int i = 0; i < days; i++) {
+            data.insertDay(source, day);
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    private void assertTableEquals(String query) {
+        Cursor expected = source.rawQuery(query, null);
+        Cursor actual = target.rawQuery(query, null);
+        try {
+            assertEquals(expected.getCount(), actual.getCount());
+            while (expected.moveToNext() && actual.moveToNext()) {
+                String[] expectedRow = new String[expected.getColumnCount()];
+                String[] actualRow = new String[actual.getColumnCount()];
+                for (int i = 0; i < expectedRow.length; i++) {
+                    expectedRow[i] = expected.getString(i);
+                    actualRow[i] = actual.getString(i);
+                }
+                assertArrayEquals(expectedRow, actualRow);
+            }
+        } finally {
+            expected.close();
+            actual.close();
+        }
+    }
+
+    private static long count(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Samples used heap on a background thread and reports the peak above the starting level.
+     * With collectGarbage each sample follows a full collection, so the peak is the live heap.
+     */
+    private static final class HeapSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final AtomicLong peak = new AtomicLong();
+        private final long baseline;
+        private final Thread thread;
+
+        HeapSampler(boolean collectGarbage) {
+            System.gc();
+            baseline = memory.getHeapMemoryUsage().getUsed();
+            thread = new Thread(() -> {
+                while (running.get()) {
+                    if (collectGarbage) {
+                        System.gc();
+                    }
+                    long used = memory.getHeapMemoryUsage().getUsed() - baseline;
+                    peak.accumulateAndGet(used, Math::max);
+                    try {
+                        Thread.sleep(collectGarbage ? 20 : 5);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+            return Math.max(0, peak.get());
+        }
+    }
+}
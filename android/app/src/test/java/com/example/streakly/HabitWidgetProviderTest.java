@@ -0,0 +1,307 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import android.util.SizeF;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.RemoteViews;
+import android.widget.TextView;
+import androidx.test.core.app.ApplicationProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Allocation and IPC budget of the render path: repeated renders of unchanged data reuse the cached
+ * item RemoteViews and PendingIntents (checked by identity) and only build the root RemoteViews,
+ * and smaller sizes build fewer items
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HabitWidgetProviderTest {
+    private Context context;
+    private AppWidgetManager appWidgetManager;
+    private int widgetId;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        appWidgetManager = AppWidgetManager.getInstance(context);
+        widgetId = shadowOf(appWidgetManager).createWidget(HabitWidgetProvider.class, R.layout.habit_widget);
+        // Robolectric keeps the provider's static caches across tests and reuses widget ids
+        HabitWidgetProvider.resetCachesForTest();
+        PerfCounters.reset();
+        // Broadcast-triggered renders would otherwise race the counters on the render thread
+        HabitWidgetProvider.setRenderExecutor(Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        HabitWidgetProvider.resetRenderExecutor();
+    }
+
+    @Test
+    public void unchangedDataReusesItemsAndPendingIntents() {
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + "," + habit(3, "Walk", true) + "]", 1);
+        render();
+        assertEquals(Arrays.asList("Read", "Run", "Walk"), texts(R.id.habit_title));
+        PendingIntent readIntent = HabitWidgetProvider.cachedClickIntent(widgetId, 1);
+        RemoteViews readItem = HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1);
+        assertNotNull(readIntent);
+        assertNotNull(readItem);
+
+        PerfCounters.reset();
+        render();
+        assertEquals(Arrays.asList("Read", "Run", "Walk"), texts(R.id.habit_title));
+        assertSame(readIntent, HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertSame(readItem, HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1));
+        assertEquals("root only", 1, PerfCounters.remoteViews.get());
+        assertEquals(0, PerfCounters.pendingIntents.get());
+        assertEquals(1, PerfCounters.widgetUpdates.get());
+    }
+
+    @Test
+    public void completionChangeRebuildsOnlyThatItem() {
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + "]", 0);
+        render();
+        RemoteViews readItem = HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1);
+        RemoteViews runItem = HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 2);
+        PendingIntent readIntent = HabitWidgetProvider.cachedClickIntent(widgetId, 1);
+
+        writeWidgetData("[" + habit(2, "Run", false) + "," + habit(1, "Read", true) + "]", 1);
+        PerfCounters.reset();
+        render();
+        assertEquals(Arrays.asList("Run", "Read"), texts(R.id.habit_title));
+        assertSame(runItem, HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 2));
+        assertNotSame(readItem, HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1));
+        assertSame("the rebuilt item keeps its intent", readIntent, HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertEquals("root and the toggled item", 2, PerfCounters.remoteViews.get());
+        assertEquals(0, PerfCounters.pendingIntents.get());
+    }
+
+    @Test
+    public void habitSetChangeCreatesIntentsOnlyForNewHabits() {
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + "]", 0);
+        render();
+        PendingIntent runIntent = HabitWidgetProvider.cachedClickIntent(widgetId, 2);
+
+        writeWidgetData("[" + habit(2, "Run", false) + "," + habit(4, "Stretch", false) + "]", 0);
+        PerfCounters.reset();
+        render();
+        assertEquals(Arrays.asList("Run", "Stretch"), texts(R.id.habit_title));
+        assertSame(runIntent, HabitWidgetProvider.cachedClickIntent(widgetId, 2));
+        assertNotNull(HabitWidgetProvider.cachedClickIntent(widgetId, 4));
+        assertNull("dropped with the old set", HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertEquals(2, PerfCounters.remoteViews.get());
+        assertEquals(1, PerfCounters.pendingIntents.get());
+
+        // Habit 1 was dropped with the old set, showing it again needs a new intent
+        writeWidgetData("[" + habit(1, "Read", false) + "]", 0);
+        PerfCounters.reset();
+        render();
+        assertEquals(Collections.singletonList("Read"), texts(R.id.habit_title));
+        assertNotNull(HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertNull(HabitWidgetProvider.cachedClickIntent(widgetId, 2));
+        assertEquals(1, PerfCounters.pendingIntents.get());
+    }
+
+    @Test
+    public void compactWidgetBuildsNoItemsOrIntents() {
+        resize(110, 100);
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + "]", 1);
+
+        PerfCounters.reset();
+        render();
+        assertEquals("1/2", texts(R.id.compact_count).get(0));
+        assertEquals(Collections.emptyList(), texts(R.id.habit_title));
+        assertNull(HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertNull(HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_COMPACT, 1));
+        assertEquals("compact root only", 1, PerfCounters.remoteViews.get());
+        assertEquals(0, PerfCounters.pendingIntents.get());
+    }
+
+    @Test
+    public void rowCountFollowsWidgetHeight() {
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + ","
+            + habit(3, "Walk", false) + "]", 0);
+
+        // One list row fits
+        resize(250, 130);
+        PerfCounters.reset();
+        render();
+        assertEquals(Collections.singletonList("Read"), texts(R.id.habit_title));
+        PendingIntent readIntent = HabitWidgetProvider.cachedClickIntent(widgetId, 1);
+        assertNotNull(readIntent);
+        assertNull(HabitWidgetProvider.cachedClickIntent(widgetId, 2));
+        assertEquals(1, PerfCounters.pendingIntents.get());
+
+        // Grid of two rows: every habit shows, intents of the visible habit are reused
+        resize(320, 200);
+        PerfCounters.reset();
+        render();
+        assertEquals("start column, then end column", Arrays.asList("Read", "Walk", "Run"), texts(R.id.habit_title));
+        assertSame(readIntent, HabitWidgetProvider.cachedClickIntent(widgetId, 1));
+        assertEquals(2, PerfCounters.pendingIntents.get());
+        assertEquals("root and three grid cells", 4, PerfCounters.remoteViews.get());
+    }
+
+    @Test
+    public void sizedLayoutsRenderOneBucketPerSize() {
+        writeWidgetData("[" + habit(1, "Read", false) + "," + habit(2, "Run", false) + ","
+            + habit(3, "Walk", false) + "]", 0);
+
+        // Android 12+ launchers report every size the widget may be shown at
+        ArrayList<SizeF> sizes = new ArrayList<>();
+        sizes.add(new SizeF(110, 100));
+        sizes.add(new SizeF(250, 130));
+        sizes.add(new SizeF(320, 200));
+        Bundle options = new Bundle();
+        options.putParcelableArrayList(AppWidgetManager.OPTION_APPWIDGET_SIZES, sizes);
+        appWidgetManager.updateAppWidgetOptions(widgetId, options);
+
+        assertEquals(WidgetLayout.BUCKET_COMPACT, WidgetLayout.forSize(110, 100).bucket);
+        assertEquals(WidgetLayout.BUCKET_LIST, WidgetLayout.forSize(250, 130).bucket);
+        assertEquals(1, WidgetLayout.forSize(250, 130).maxHabits);
+        assertEquals(WidgetLayout.BUCKET_GRID, WidgetLayout.forSize(320, 200).bucket);
+        assertEquals(4, WidgetLayout.forSize(320, 200).maxHabits);
+
+        PerfCounters.reset();
+        render();
+        // The list row and the grid cell of habit 1 are different layouts sharing one intent
+        RemoteViews listItem = HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1);
+        RemoteViews gridItem = HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_GRID, 1);
+        assertNotNull(listItem);
+        assertNotNull(gridItem);
+        assertNotSame(listItem, gridItem);
+        assertNull("the list shows one row", HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 2));
+        PendingIntent[] intents = new PendingIntent[3];
+        for (int habitId = 1; habitId <= 3; habitId++) {
+            intents[habitId - 1] = HabitWidgetProvider.cachedClickIntent(widgetId, habitId);
+            assertNotNull(intents[habitId - 1]);
+        }
+        assertEquals("sized wrapper, three roots, one list row and three grid cells", 8, PerfCounters.remoteViews.get());
+        assertEquals("one intent per habit, shared by the list and the grid", 3, PerfCounters.pendingIntents.get());
+        assertEquals(1, PerfCounters.widgetUpdates.get());
+
+        PerfCounters.reset();
+        render();
+        assertSame(listItem, HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_LIST, 1));
+        assertSame(gridItem, HabitWidgetProvider.cachedItemViews(widgetId, WidgetLayout.BUCKET_GRID, 1));
+        for (int habitId = 1; habitId <= 3; habitId++) {
+            assertSame(intents[habitId - 1], HabitWidgetProvider.cachedClickIntent(widgetId, habitId));
+        }
+        assertEquals("sized wrapper and three roots", 4, PerfCounters.remoteViews.get());
+        assertEquals(0, PerfCounters.pendingIntents.get());
+    }
+
+    @Test
+    public void hiddenCompletedHabitsShowAllDoneMessage() {
+        SQLiteDatabase db = SyntheticHabitData.createDatabase(context);
+        try {
+            db.execSQL("INSERT INTO habits_table (title, reminder_time, target_days, created_at) "
+                + "VALUES ('Read', '08:00', '1,2,3,4,5,6,7', 0), ('Run', '18:00', '1,2,3,4,5,6,7', 0)");
+            SyntheticHabitData.markCompleted(db, 1, Calendar.getInstance(), true);
+            WidgetConfig.save(context, widgetId, new WidgetConfig(new int[0], WidgetConfig.SORT_REMINDER_TIME, true,
+                WidgetConfig.NO_WINDOW, WidgetConfig.NO_WINDOW));
+
+            render();
+            assertEquals("Run", text(R.id.habit_title));
+
+            SyntheticHabitData.markCompleted(db, 2, Calendar.getInstance(), true);
+            render();
+            assertEquals(HabitWidgetProvider.ALL_DONE_MESSAGE, text(R.id.habits_message));
+
+            // Nothing scheduled at all is still reported as such
+            db.execSQL("DELETE FROM habits_table");
+            render();
+            assertEquals(HabitWidgetProvider.NO_HABITS_MESSAGE, text(R.id.habits_message));
+        } finally {
+            WidgetConfig.delete(context, new int[]{widgetId});
+            db.close();
+        }
+    }
+
+    @Test
+    public void layoutBucketsBySize() {
+        assertEquals(WidgetLayout.BUCKET_COMPACT, WidgetLayout.forSize(100, 300).bucket);
+        assertEquals(WidgetLayout.BUCKET_COMPACT, WidgetLayout.forSize(250, 110).bucket);
+        assertEquals(WidgetLayout.BUCKET_LIST, WidgetLayout.forSize(250, 180).bucket);
+        assertEquals(2, WidgetLayout.forSize(250, 180).maxHabits);
+        assertEquals(WidgetLayout.BUCKET_GRID, WidgetLayout.forSize(320, 300).bucket);
+        assertEquals(6, WidgetLayout.forSize(320, 300).maxHabits);
+        assertEquals(WidgetSnapshot.MAX_HABITS, WidgetLayout.forSize(250, 1000).maxHabits);
+        assertEquals(WidgetLayout.DEFAULT, WidgetLayout.forSize(0, 0));
+    }
+
+    private void resize(int widthDp, int heightDp) {
+        Bundle options = new Bundle();
+        options.putInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, widthDp);
+        options.putInt(AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH, widthDp);
+        options.putInt(AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT, heightDp);
+        options.putInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT, heightDp);
+        appWidgetManager.updateAppWidgetOptions(widgetId, options);
+    }
+
+    private void render() {
+        HabitWidgetProvider.updateAppWidget(context, appWidgetManager, widgetId);
+    }
+
+    private String text(int viewId) {
+        TextView view = shadowOf(appWidgetManager).getViewFor(widgetId).findViewById(viewId);
+        return view.getText().toString();
+    }
+
+    /**
+     * Text of every view with this id in the rendered widget, in layout order
+     */
+    private List<String> texts(int viewId) {
+        List<String> texts = new ArrayList<>();
+        collectTexts(shadowOf(appWidgetManager).getViewFor(widgetId), viewId, texts);
+        return texts;
+    }
+
+    private static void collectTexts(View view, int viewId, List<String> texts) {
+        if (view.getId() == viewId && view instanceof TextView) {
+            texts.add(((TextView) view).getText().toString());
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectTexts(group.getChildAt(i), viewId, texts);
+            }
+        }
+    }
+
+    private void writeWidgetData(String habitsJson, int completed) {
+        int total = habitsJson.split("\"id\"").length - 1;
+        String json = "{\"habits\":" + habitsJson + ",\"totalHabits\":" + total
+            + ",\"completedHabits\":" + completed + ",\"lastUpdated\":\"2025-01-01T00:00:00\"}";
+        context.getSharedPreferences("FlutterSharedPreferences", Context.MODE_PRIVATE)
+            .edit()
+            .putString("flutter.streakly_habits_widget_data", json)
+            .commit();
+    }
+
+    private static String habit(int id, String title, boolean completed) {
+        return "{\"id\":" + id + ",\"title\":\"" + title + "\",\"isCompletedToday\":" + completed + "}";
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.work.ListenableWorker;
+import androidx.work.testing.TestWorkerBuilder;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class HistoryCompactionWorkerTest {
+    // Same golden bitmaps as test/history_compaction_test.dart, so both sides agree on the layout
+    // 2024 (leap year): Jan 1, Jan 8, Jan 9, Feb 29, Dec 31
+    static final String GOLDEN_2024 =
+        "8101000000000008000000000000000000000000000000000000000000000000000000000000000000000000000020";
+    // 2023: Jan 1, Mar 1, Dec 31
+    static final String GOLDEN_2023 =
+        "0100000000000008000000000000000000000000000000000000000000000000000000000000000000000000000010";
+
+    private SQLiteDatabase db;
+    private Calendar now;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        now = day(2025, Calendar.MARCH, 3);
+        now.set(Calendar.HOUR_OF_DAY, 9);
+        AppClock.setTimeSource(() -> now.getTimeInMillis());
+
+        Context context = ApplicationProvider.getApplicationContext();
+        db = SyntheticHabitData.createDatabase(context);
+        new SyntheticHabitData(1L, 3, 0).insertHabits(db, now.getTimeInMillis());
+    }
+
+    @After
+    public void tearDown() {
+        AppClock.reset();
+        db.close();
+    }
+
+    @Test
+    public void compactionWritesTheSharedBitmapLayout() {
+        complete(1, day(2024, Calendar.JANUARY, 1));
+        complete(1, day(2024, Calendar.JANUARY, 8));
+        complete(1, day(2024, Calendar.JANUARY, 9));
+        complete(1, day(2024, Calendar.FEBRUARY, 29));
+        complete(1, day(2024, Calendar.DECEMBER, 31));
+
+        // Merged into the bitmap an earlier run already wrote
+        db.execSQL("INSERT INTO habit_history_archive_table (habit_id, year, bits) VALUES (2, 2023, ?)",
+            new Object[]{hexToBytes("01" + zeros(HistoryCompactionWorker.BYTES_PER_YEAR - 1))});
+        complete(2, day(2023, Calendar.MARCH, 1));
+        complete(2, day(2023, Calendar.DECEMBER, 31));
+
+        int folded = HistoryCompactionWorker.compact(db, seconds(day(2025, Calendar.JANUARY, 1)), seconds(now));
+
+        assertEquals(7, folded);
+        assertRows("SELECT habit_id, year, hex(bits) FROM habit_history_archive_table ORDER BY habit_id, year",
+            "1|2024|" + GOLDEN_2024,
+            "2|2023|" + GOLDEN_2023);
+        assertRows("SELECT COUNT(*) FROM habit_entries_table", "0");
+    }
+
+    @Test
+    public void compactionDropsOrphansAndUntoggledRowsButKeepsToday() {
+        Calendar yesterday = day(2025, Calendar.MARCH, 2);
+        SyntheticHabitData.markCompleted(db, 1, day(2024, Calendar.MAY, 5), false);
+        SyntheticHabitData.markCompleted(db, 1, now, false);
+        SyntheticHabitData.markCompleted(db, 3, yesterday, false);
+        complete(3, day(2025, Calendar.MARCH, 1));
+
+        // Habit 99 was deleted while foreign keys were off
+        complete(99, day(2023, Calendar.JUNE, 1));
+        complete(99, yesterday);
+        db.execSQL("INSERT INTO habit_history_archive_table (habit_id, year, bits) VALUES (99, 2022, ?)",
+            new Object[]{new byte[HistoryCompactionWorker.BYTES_PER_YEAR]});
+
+        int folded = HistoryCompactionWorker.compact(db, seconds(day(2025, Calendar.JANUARY, 1)), seconds(now));
+
+        assertEquals(0, folded);
+        assertRows("SELECT habit_id, date, is_completed FROM habit_entries_table ORDER BY habit_id, date",
+            "1|" + seconds(now) + "|0",
+            "3|" + seconds(day(2025, Calendar.MARCH, 1)) + "|1");
+        assertRows("SELECT COUNT(*) FROM habit_history_archive_table", "0");
+    }
+
+    @Test
+    public void vacuumSwitchesToIncrementalAndReleasesFreePages() {
+        Calendar date = day(2022, Calendar.JANUARY, 1);
+        for (int i = 0; i < 2 * 365; i++) {
+            for (int habitId = 1; habitId <= 3; habitId++) {
+                complete(habitId, date);
+            }
+            date.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        HistoryCompactionWorker.compact(db, seconds(day(2025, Calendar.JANUARY, 1)), seconds(now));
+
+        HistoryCompactionWorker.vacuum(db);
+        assertRows("PRAGMA auto_vacuum", "2");
+        assertRows("PRAGMA freelist_count", "0");
+
+        // Later runs take the incremental path
+        for (int habitId = 1; habitId <= 3; habitId++) {
+            for (int i = 0; i < 200; i++) {
+                complete(habitId, day(2024, Calendar.JANUARY, 1 + i));
+            }
+        }
+        db.execSQL("DELETE FROM habit_entries_table");
+        HistoryCompactionWorker.vacuum(db);
+        assertRows("PRAGMA freelist_count", "0");
+    }
+
+    @Test
+    public void workerLeavesDriftsSchemaAndJournalModeAlone() {
+        complete(1, day(2022, Calendar.JUNE, 1));
+
+        ListenableWorker.Result result = TestWorkerBuilder.from(ApplicationProvider.getApplicationContext(),
+            HistoryCompactionWorker.class, Runnable::run).build().doWork();
+
+        assertEquals(ListenableWorker.Result.success(), result);
+        assertRows("SELECT habit_id, year FROM habit_history_archive_table", "1|2022");
+        // Localized collators would have Android create android_metadata in the app's schema
+        assertRows("SELECT name FROM sqlite_master WHERE name = 'android_metadata'");
+        assertRows("PRAGMA journal_mode", "wal");
+    }
+
+    private void complete(int habitId, Calendar date) {
+        SyntheticHabitData.markCompleted(db, habitId, date, true);
+    }
+
+    private void assertRows(String query, String... expected) {
+        List<String> rows = new ArrayList<>();
+        Cursor cursor = db.rawQuery(query, null);
+        try {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    if (i > 0) {
+                        row.append('|');
+                    }
+                    row.append(cursor.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        } finally {
+            cursor.close();
+        }
+        assertArrayEquals(expected, rows.toArray(new String[0]));
+    }
+
+    private static Calendar day(int year, int month, int dayOfMonth) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, dayOfMonth);
+        return calendar;
+    }
+
+    private static long seconds(Calendar calendar) {
+        return SyntheticHabitData.startOfDay(calendar) / 1000;
+    }
+
+    private static String zeros(int bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < bytes; i++) {
+            hex.append("00");
+        }
+        return hex.toString();
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
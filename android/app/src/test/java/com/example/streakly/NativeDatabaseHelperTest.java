@@ -0,0 +1,136 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import java.util.Calendar;
+import java.util.TimeZone;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class NativeDatabaseHelperTest {
+    private Context context;
+    private SQLiteDatabase db;
+    private Calendar now;
+
+    @Before
+    public void setUp() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        now = Calendar.getInstance();
+        now.clear();
+        now.set(2025, Calendar.MARCH, 3, 9, 30, 0); // Monday
+        AppClock.setTimeSource(() -> now.getTimeInMillis());
+
+        context = ApplicationProvider.getApplicationContext();
+        db = SyntheticHabitData.createDatabase(context);
+        insertHabit("Run", "18:00", "1,2,3");
+        insertHabit("Read", "07:15", "1");
+        insertHabit("Stretch", "", "1,7");
+        insertHabit("Yoga", "06:00", "2,4"); // Not today
+        insertHabit("Journal", "22:30", "1");
+        SyntheticHabitData.markCompleted(db, 2, now, true);
+        SyntheticHabitData.markCompleted(db, 5, now, false);
+    }
+
+    @After
+    public void tearDown() {
+        AppClock.reset();
+        db.close();
+    }
+
+    @Test
+    public void defaultSnapshotSortsCompletedLastThenByReminderTime() throws Exception {
+        JSONObject snapshot = NativeDatabaseHelper.getTodayHabitsFromDatabase(context);
+
+        assertEquals(4, snapshot.getInt("totalHabits"));
+        assertEquals(1, snapshot.getInt("completedHabits"));
+        assertTitles(snapshot, "Run", "Journal", "Stretch", "Read");
+        assertTrue(snapshot.getJSONArray("habits").getJSONObject(3).getBoolean("isCompletedToday"));
+    }
+
+    @Test
+    public void configuredSnapshotAppliesSubsetWindowAndHideCompleted() throws Exception {
+        WidgetConfig evening = new WidgetConfig(new int[0], WidgetConfig.SORT_REMINDER_TIME, false, 17 * 60, 23 * 60);
+        assertTitles(NativeDatabaseHelper.getWidgetSnapshot(context, evening), "Run", "Journal");
+
+        WidgetConfig subset = new WidgetConfig(new int[]{5, 2, 4}, WidgetConfig.SORT_TITLE, true,
+            WidgetConfig.NO_WINDOW, WidgetConfig.NO_WINDOW);
+        JSONObject snapshot = NativeDatabaseHelper.getWidgetSnapshot(context, subset);
+        assertTitles(snapshot, "Journal");
+        assertEquals(2, snapshot.getInt("totalHabits"));
+        assertEquals(1, snapshot.getInt("completedHabits"));
+
+        WidgetConfig overnight = new WidgetConfig(new int[0], WidgetConfig.SORT_REMINDER_TIME, false, 22 * 60, 8 * 60);
+        assertTitles(NativeDatabaseHelper.getWidgetSnapshot(context, overnight), "Journal", "Stretch", "Read");
+    }
+
+    @Test
+    public void snapshotMaterializesOnlyTheRowsTheWidgetShows() throws Exception {
+        JSONObject snapshot = NativeDatabaseHelper.getWidgetSnapshot(context, WidgetConfig.DEFAULT, 2);
+
+        assertTitles(snapshot, "Run", "Journal");
+        assertEquals(4, snapshot.getInt("totalHabits"));
+        assertEquals(1, snapshot.getInt("completedHabits"));
+    }
+
+    @Test
+    public void streaksCountConsecutiveCompletedTargetDays() {
+        // Run (Mon-Wed): today, Wed and Tue, but not last Monday
+        SyntheticHabitData.markCompleted(db, 1, now, true);
+        SyntheticHabitData.markCompleted(db, 1, daysAgo(5), true);
+        SyntheticHabitData.markCompleted(db, 1, daysAgo(6), true);
+        // Read (Mon): today and the two Mondays before, then a gap
+        SyntheticHabitData.markCompleted(db, 2, daysAgo(7), true);
+        SyntheticHabitData.markCompleted(db, 2, daysAgo(14), true);
+        SyntheticHabitData.markCompleted(db, 2, daysAgo(28), true);
+        // Stretch (Mon, Sun): yesterday only, today is still open
+        SyntheticHabitData.markCompleted(db, 3, daysAgo(1), true);
+
+        int[] streaks = NativeDatabaseHelper.getStreaks(context, new int[]{2, 1, 3, 4}, 4);
+        assertEquals(3, streaks[0]);
+        assertEquals(3, streaks[1]);
+        assertEquals(0, streaks[2]);
+        assertEquals(0, streaks[3]);
+    }
+
+    @Test
+    public void configKeyIsCanonical() {
+        WidgetConfig a = new WidgetConfig(new int[]{3, 1, 2}, WidgetConfig.SORT_TITLE, true, 60, 120);
+        WidgetConfig b = WidgetConfig.fromKey(new WidgetConfig(new int[]{1, 2, 3}, WidgetConfig.SORT_TITLE, true, 60, 120).key());
+
+        assertEquals(a.key(), b.key());
+        assertTrue(WidgetConfig.DEFAULT.isDefault());
+        assertFalse(a.isDefault());
+    }
+
+    private void insertHabit(String title, String reminderTime, String targetDays) {
+        db.execSQL("INSERT INTO habits_table (title, reminder_time, target_days, created_at) VALUES (?, ?, ?, 0)",
+            new Object[]{title, reminderTime, targetDays});
+    }
+
+    private Calendar daysAgo(int days) {
+        Calendar day = (Calendar) now.clone();
+        day.add(Calendar.DAY_OF_MONTH, -days);
+        return day;
+    }
+
+    private static void assertTitles(JSONObject snapshot, String... titles) throws Exception {
+        JSONArray habits = snapshot.getJSONArray("habits");
+        assertEquals(titles.length, habits.length());
+        for (int i = 0; i < titles.length; i++) {
+            assertEquals(titles[i], habits.getJSONObject(i).getString("title"));
+        }
+    }
+}
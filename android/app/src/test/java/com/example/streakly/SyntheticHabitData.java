@@ -0,0 +1,163 @@
+package com.example.streakly;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.io.File;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Seeded generator for habits_table and habit_entries_table
+ * Writes the same schema and value encoding Drift uses (dates as unix seconds of local midnight)
+ */
+final class SyntheticHabitData {
+    private static final String[] TITLES = {
+        "Read", "Meditate", "Walk", "Stretch", "Journal", "Drink water", "Study", "Run", "Practice", "Sleep early"
+    };
+
+    private final Random random;
+    private final int habitCount;
+    private final double completionRate;
+
+    SyntheticHabitData(long seed, int habitCount, double completionRate) {
+        this.random = new Random(seed);
+        this.habitCount = habitCount;
+        this.completionRate = completionRate;
+    }
+
+    /**
+     * Create the Flutter database where NativeDatabaseHelper looks for it
+     */
+    static SQLiteDatabase createDatabase(Context context) {
+        File documentsDir = new File(context.getFilesDir().getParent() + "/app_flutter/");
+        documentsDir.mkdirs();
+        return createDatabase(new File(documentsDir, "streakly.db"));
+    }
+
+    static SQLiteDatabase createDatabase(File dbFile) {
+        SQLiteDatabase.deleteDatabase(dbFile);
+
+        // Like Drift's file: no android_metadata table from localized collators
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(dbFile.getPath(), null,
+            SQLiteDatabase.CREATE_IF_NECESSARY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+        db.execSQL("CREATE TABLE habits_table ("
+            + "id INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+            + "title TEXT NOT NULL, "
+            + "description TEXT NULL, "
+            + "reminder_time TEXT NOT NULL, "
+            + "target_days TEXT NOT NULL, "
+            + "created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE habit_entries_table ("
+            + "id INTEGER NOT NULL PRIMARY KEY AUTOINCREMENT, "
+            + "habit_id INTEGER NOT NULL REFERENCES habits_table (id) ON DELETE CASCADE, "
+            + "date INTEGER NOT NULL, "
+            + "is_completed INTEGER NOT NULL DEFAULT 0 CHECK (is_completed IN (0, 1)))");
+        db.execSQL("CREATE INDEX habit_entries_habit_date ON habit_entries_table (habit_id, date)");
+        db.execSQL("CREATE TABLE habit_history_archive_table ("
+            + "habit_id INTEGER NOT NULL REFERENCES habits_table (id) ON DELETE CASCADE, "
+            + "year INTEGER NOT NULL, "
+            + "bits BLOB NOT NULL, "
+            + "PRIMARY KEY (habit_id, year))");
+        return db;
+    }
+
+    void insertHabits(SQLiteDatabase db, long createdAtMillis) {
+        SQLiteStatement insert = db.compileStatement(
+            "INSERT INTO habits_table (title, description, reminder_time, target_days, created_at) VALUES (?, ?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < habitCount; i++) {
+                insert.bindString(1, TITLES[random.nextInt(TITLES.length)] + " " + (i + 1));
+                insert.bindNull(2);
+                insert.bindString(3, String.format(Locale.US, "%02d:%02d", random.nextInt(24), random.nextInt(12) * 5));
+                insert.bindString(4, randomTargetDays());
+                insert.bindLong(5, createdAtMillis / 1000);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Simulate one day of in-app use: most habits get a completed row, a few an un-toggled one
+     */
+    void insertDay(SQLiteDatabase db, Calendar day) {
+        long dateSeconds = startOfDay(day) / 1000;
+        SQLiteStatement insert = db.compileStatement(
+            "INSERT INTO habit_entries_table (habit_id, date, is_completed) VALUES (?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int habitId = 1; habitId <= habitCount; habitId++) {
+                double roll = random.nextDouble();
+                if (roll < completionRate) {
+                    insert.bindLong(1, habitId);
+                    insert.bindLong(2, dateSeconds);
+                    insert.bindLong(3, 1);
+                    insert.executeInsert();
+                } else if (roll < completionRate + 0.05) {
+                    insert.bindLong(1, habitId);
+                    insert.bindLong(2, dateSeconds);
+                    insert.bindLong(3, 0);
+                    insert.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Same write markHabitCompleted performs in Dart
+     */
+    static void markCompleted(SQLiteDatabase db, int habitId, Calendar day, boolean isCompleted) {
+        long dateSeconds = startOfDay(day) / 1000;
+        String[] args = {String.valueOf(habitId), String.valueOf(dateSeconds)};
+
+        db.execSQL("UPDATE habit_entries_table SET is_completed = " + (isCompleted ? 1 : 0)
+            + " WHERE habit_id = ? AND date = ?", args);
+        db.execSQL("INSERT INTO habit_entries_table (habit_id, date, is_completed) "
+            + "SELECT ?, ?, " + (isCompleted ? 1 : 0)
+            + " WHERE changes() = 0", new Object[]{habitId, dateSeconds});
+    }
+
+    int nextHabitId() {
+        return 1 + random.nextInt(habitCount);
+    }
+
+    boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    private String randomTargetDays() {
+        if (random.nextInt(3) == 0) {
+            return "1,2,3,4,5,6,7";
+        }
+
+        StringBuilder days = new StringBuilder();
+        for (int day = 1; day <= 7; day++) {
+            if (random.nextBoolean()) {
+                if (days.length() > 0) {
+                    days.append(',');
+                }
+                days.append(day);
+            }
+        }
+        return days.length() > 0 ? days.toString() : "1";
+    }
+
+    static long startOfDay(Calendar day) {
+        Calendar calendar = (Calendar) day.clone();
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
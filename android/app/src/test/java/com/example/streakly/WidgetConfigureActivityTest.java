@@ -0,0 +1,124 @@
+package com.example.streakly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.appwidget.AppWidgetManager;
+import android.content.Context;
+import android.content.Intent;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+import android.widget.Button;
+import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.Switch;
+import androidx.test.core.app.ApplicationProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowActivity;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class WidgetConfigureActivityTest {
+    private Context context;
+    private SQLiteDatabase db;
+    private int widgetId;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        db = SyntheticHabitData.createDatabase(context);
+        db.execSQL("INSERT INTO habits_table (title, reminder_time, target_days, created_at) "
+            + "VALUES ('Run', '18:00', '1,2,3', 0), ('Read', '07:15', '1', 0), ('Journal', '22:30', '1', 0)");
+        widgetId = shadowOf(AppWidgetManager.getInstance(context))
+            .createWidget(HabitWidgetProvider.class, R.layout.habit_widget);
+        HabitWidgetProvider.resetCachesForTest();
+        HabitWidgetProvider.setRenderExecutor(Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        HabitWidgetProvider.resetRenderExecutor();
+        db.close();
+    }
+
+    @Test
+    public void savingStoresTheConfigAndReturnsTheWidgetId() throws Exception {
+        WidgetConfigureActivity activity = launch();
+        ListView habitList = activity.findViewById(R.id.habit_list);
+        assertEquals("sorted by title", "Journal", habitList.getItemAtPosition(0));
+
+        habitList.setItemChecked(0, true); // Journal, id 3
+        habitList.setItemChecked(1, true); // Read, id 2
+        ((Spinner) activity.findViewById(R.id.sort_order)).setSelection(1);
+        ((Spinner) activity.findViewById(R.id.time_window)).setSelection(3);
+        ((Switch) activity.findViewById(R.id.hide_completed)).setChecked(true);
+        activity.findViewById(R.id.save_button).performClick();
+
+        WidgetConfig expected = new WidgetConfig(new int[]{2, 3}, WidgetConfig.SORT_TITLE, true, 17 * 60, 23 * 60);
+        assertEquals(expected.key(), WidgetConfig.load(context, widgetId).key());
+
+        ShadowActivity shadowActivity = shadowOf(activity);
+        assertEquals(Activity.RESULT_OK, shadowActivity.getResultCode());
+        assertEquals(widgetId, shadowActivity.getResultIntent()
+            .getIntExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID));
+        assertTrue(activity.isFinishing());
+    }
+
+    @Test
+    public void reconfiguringStartsFromTheStoredConfig() throws Exception {
+        WidgetConfig.save(context, widgetId,
+            new WidgetConfig(new int[]{1}, WidgetConfig.SORT_REMINDER_TIME, false, 22 * 60, 8 * 60));
+
+        WidgetConfigureActivity activity = launch();
+        ListView habitList = activity.findViewById(R.id.habit_list);
+        assertTrue("Run is checked", habitList.isItemChecked(2));
+        assertEquals(1, habitList.getCheckedItemCount());
+
+        // The overnight window isn't a preset and is kept as an extra entry
+        Spinner timeWindow = activity.findViewById(R.id.time_window);
+        assertEquals("22:00-08:00", timeWindow.getSelectedItem().toString());
+
+        // Checking every habit follows all habits, including ones created later
+        habitList.setItemChecked(0, true);
+        habitList.setItemChecked(1, true);
+        activity.findViewById(R.id.save_button).performClick();
+        assertEquals(new WidgetConfig(new int[0], WidgetConfig.SORT_REMINDER_TIME, false, 22 * 60, 8 * 60).key(),
+            WidgetConfig.load(context, widgetId).key());
+    }
+
+    @Test
+    public void backingOutDoesNotAddTheWidget() throws Exception {
+        WidgetConfigureActivity activity = launch();
+        activity.finish();
+
+        assertEquals(Activity.RESULT_CANCELED, shadowOf(activity).getResultCode());
+        assertTrue(WidgetConfig.load(context, widgetId).isDefault());
+    }
+
+    private WidgetConfigureActivity launch() throws InterruptedException {
+        Intent intent = new Intent(context, WidgetConfigureActivity.class)
+            .setAction(AppWidgetManager.ACTION_APPWIDGET_CONFIGURE)
+            .putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, widgetId);
+        WidgetConfigureActivity activity = Robolectric.buildActivity(WidgetConfigureActivity.class, intent)
+            .setup()
+            .get();
+
+        // Habits are loaded on a background thread and posted back to the main looper
+        Button save = activity.findViewById(R.id.save_button);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!save.isEnabled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        assertTrue("habits loaded", save.isEnabled());
+        return activity;
+    }
+}
@@ -0,0 +1,139 @@
+import 'dart:io';
+import 'dart:ui';
+
+import 'package:drift/drift.dart' show Value;
+import 'package:flutter/material.dart';
+import 'package:flutter_riverpod/flutter_riverpod.dart';
+import 'package:flutter_test/flutter_test.dart';
+import 'package:integration_test/integration_test.dart';
+import 'package:path/path.dart' as p;
+import 'package:path_provider/path_provider.dart';
+import 'package:table_calendar/table_calendar.dart';
+
+import 'package:streakly/core/database/app_database.dart';
+import 'package:streakly/features/habit/presentation/widgets/habit_card.dart';
+import 'package:streakly/main.dart';
+
+// Run on a device: flutter test integration_test/large_history_perf_test.dart --profile
+// Sizes can be changed with --dart-define=HABITS=... --dart-define=YEARS=...
+const _habits = int.fromEnvironment('HABITS', defaultValue: 200);
+const _years = int.fromEnvironment('YEARS', defaultValue: 3);
+const _frameBudget = Duration(microseconds: 16667);
+
+Future<void> _seed(AppDatabase db) async {
+  final now = DateTime.now();
+  final days = _years * 365;
+
+  for (int h = 0; h < _habits; h++) {
+    final id = await db.habitsDao.createHabit(HabitsTableCompanion.insert(
+      title: 'Habit $h',
+      reminderTime: '${(h % 24).toString().padLeft(2, '0')}:00',
+      targetDays: h % 3 == 0 ? '1,3,5' : '1,2,3,4,5,6,7',
+    ));
+
+    await db.batch((batch) {
+      batch.insertAll(db.habitEntriesTable, [
+        for (int d = 0; d < days; d++)
+          HabitEntriesTableCompanion.insert(
+            habitId: id,
+            date: DateTime(now.year, now.month, now.day - d),
+            isCompleted: Value((d * 31 + h * 7) % 10 < 7),
+          ),
+      ]);
+    });
+  }
+}
+
+// Frame timings reported while [action] runs, plus the frames that are still in flight afterwards
+Future<List<FrameTiming>> _recordFrames(WidgetTester tester, Future<void> Function() action) async {
+  final timings = <FrameTiming>[];
+  void record(List<FrameTiming> frames) => timings.addAll(frames);
+
+  tester.binding.addTimingsCallback(record);
+  await action();
+  await tester.pumpAndSettle();
+  await Future<void>.delayed(const Duration(seconds: 1));
+  tester.binding.removeTimingsCallback(record);
+
+  return timings;
+}
+
+Duration _percentile(List<Duration> values, double percentile) {
+  final sorted = values.toList()..sort();
+  return sorted[((sorted.length - 1) * percentile).round()];
+}
+
+void _expectWithinBudget(IntegrationTestWidgetsFlutterBinding binding, String key, List<FrameTiming> timings) {
+  expect(timings, isNotEmpty, reason: '$key recorded no frames');
+
+  final build = _percentile(timings.map((t) => t.buildDuration).toList(), 0.9);
+  final raster = _percentile(timings.map((t) => t.rasterDuration).toList(), 0.9);
+  binding.reportData ??= <String, dynamic>{};
+  binding.reportData![key] = FrameTimingSummarizer(timings).summary;
+  debugPrint('$key: ${timings.length} frames, p90 build ${build.inMicroseconds}us, raster ${raster.inMicroseconds}us');
+
+  expect(build, lessThan(_frameBudget), reason: '$key p90 build time');
+  expect(raster, lessThan(_frameBudget), reason: '$key p90 raster time');
+}
+
+void main() {
+  final binding = IntegrationTestWidgetsFlutterBinding.ensureInitialized();
+  binding.framePolicy = LiveTestWidgetsFlutterBindingFramePolicy.fullyLive;
+
+  late AppDatabase database;
+
+  setUpAll(() async {
+    final dbFolder = await getApplicationDocumentsDirectory();
+    final file = File(p.join(dbFolder.path, 'streakly.db'));
+    if (await file.exists()) await file.delete();
+
+    database = AppDatabase();
+    await _seed(database);
+  });
+
+  tearDownAll(() async {
+    await database.close();
+  });
+
+  testWidgets('home list and calendar stay within the frame budget on a large history', (tester) async {
+    await tester.pumpWidget(
+      ProviderScope(
+        overrides: [
+          databaseProvider.overrideWithValue(database),
+        ],
+        child: const StreaklyApp(),
+      ),
+    );
+
+    // Loading the list: stats for every habit are computed while the spinner animates
+    final loadFrames = await _recordFrames(tester, () async {
+      await tester.pump();
+      while (find.byType(HabitCard).evaluate().isEmpty) {
+        await tester.pump(const Duration(milliseconds: 16));
+      }
+    });
+    _expectWithinBudget(binding, 'home_list_load', loadFrames);
+
+    final scrollFrames = await _recordFrames(tester, () async {
+      for (int i = 0; i < 5; i++) {
+        await tester.fling(find.byType(ListView).first, const Offset(0, -600), 2500);
+        await tester.pumpAndSettle();
+      }
+    });
+    _expectWithinBudget(binding, 'home_list_scroll', scrollFrames);
+
+    // Detail page: years of completed dates behind the calendar
+    final calendarFrames = await _recordFrames(tester, () async {
+      await tester.tap(find.byType(HabitCard).first);
+      await tester.pump();
+      while (find.byType(TableCalendar<DateTime>).evaluate().isEmpty) {
+        await tester.pump(const Duration(milliseconds: 16));
+      }
+      for (int i = 0; i < 6; i++) {
+        await tester.fling(find.byType(TableCalendar<DateTime>), const Offset(400, 0), 1500);
+        await tester.pumpAndSettle();
+      }
+    });
+    _expectWithinBudget(binding, 'calendar', calendarFrames);
+  });
+}
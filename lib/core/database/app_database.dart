@@ -1,5 +1,7 @@
 import 'dart:io';
+import 'dart:isolate';
 import 'package:drift/drift.dart';
+import 'package:drift/isolate.dart';
 import 'package:drift/native.dart';
 import 'package:flutter_riverpod/flutter_riverpod.dart';
 import 'package:path_provider/path_provider.dart';
@@ -7,29 +9,100 @@ import 'package:path/path.dart' as p;
 
 import 'tables/habits_table.dart';
 import 'tables/habit_entries_table.dart';
+import 'tables/habit_history_archive_table.dart';
 import 'daos/habits_dao.dart';
 import 'daos/habit_entries_dao.dart';
 
 part 'app_database.g.dart'; // Database file
 
 @DriftDatabase(
-  tables: [HabitsTable, HabitEntriesTable],
+  tables: [HabitsTable, HabitEntriesTable, HabitHistoryArchiveTable],
   daos: [HabitsDao, HabitEntriesDao],
 )
 class AppDatabase extends _$AppDatabase {
-  AppDatabase() : super(_openConnection()); // Initializer List
+  // Spawns (once) the drift isolate owning the SQLite connection, null for forTesting and background-isolate instances
+  final Future<DriftIsolate> Function()? _driftIsolate;
+
+  factory AppDatabase() {
+    Future<DriftIsolate>? spawned;
+    return AppDatabase._(() => spawned ??= _spawnDriftIsolate());
+  }
+
+  AppDatabase._(Future<DriftIsolate> Function() driftIsolate)
+      : _driftIsolate = driftIsolate,
+        super(LazyDatabase(() async => (await driftIsolate()).connect()));
+
+  AppDatabase.forTesting(super.executor) : _driftIsolate = null;
+
+  /// Test database behind an existing drift isolate (e.g. `DriftIsolate.inCurrent`), so
+  /// [runInBackground] takes the same background isolate path as the app
+  AppDatabase.forTestingIsolate(DriftIsolate driftIsolate) : this._(() async => driftIsolate);
+
+  AppDatabase._connect(super.connection) : _driftIsolate = null;
 
   @override
-  int get schemaVersion => 1;
+  int get schemaVersion => 3;
+
+  @override
+  MigrationStrategy get migration => MigrationStrategy(
+        onCreate: (m) async {
+          await m.createAll();
+          await _createEntryIndex();
+        },
+        onUpgrade: (m, from, to) async {
+          if (from < 2) {
+            // Archive for compacted history (filled by HistoryCompactionWorker on Android)
+            await m.createTable(habitHistoryArchiveTable);
+          }
+          if (from < 3) {
+            await _createEntryIndex();
+          }
+        },
+      );
+
+  /// Run [computation] on a short-lived isolate with its own connection to the drift isolate, so row
+  /// mapping and CPU work (streaks, stats, JSON) stay off the UI isolate. [computation] is sent to that
+  /// isolate: pass a static function or a closure over plain values, never one capturing widgets or refs.
+  /// Spawning the isolate and connecting costs more than a single-row query, so use it for bulk reads
+  /// over the habit and entry tables only. [AppDatabase.forTesting] databases have no drift isolate and
+  /// run [computation] inline.
+  Future<T> runInBackground<T>(Future<T> Function(AppDatabase db) computation) async {
+    final driftIsolate = _driftIsolate;
+    if (driftIsolate == null) return computation(this);
+
+    return _runIsolated(await driftIsolate(), computation);
+  }
+
+  static Future<T> _runIsolated<T>(DriftIsolate driftIsolate, Future<T> Function(AppDatabase db) computation) {
+    return Isolate.run(() async {
+      final db = AppDatabase._connect(await driftIsolate.connect());
+      try {
+        return await computation(db);
+      } finally {
+        await db.close();
+      }
+    });
+  }
+
+  // Per-habit, per-day lookups (today's completion, widget snapshots) are index seeks instead of table scans
+  Future<void> _createEntryIndex() => customStatement(
+      'CREATE INDEX IF NOT EXISTS habit_entries_habit_date ON habit_entries_table (habit_id, date)');
 }
 
-LazyDatabase _openConnection() {
-  return LazyDatabase(() async {
-    final dbFolder = await getApplicationDocumentsDirectory();
-    final file = File(p.join(dbFolder.path, 'streakly.db'));
+Future<DriftIsolate> _spawnDriftIsolate() async {
+  final dbFolder = await getApplicationDocumentsDirectory();
+  final path = p.join(dbFolder.path, 'streakly.db');
 
-    return NativeDatabase.createInBackground(file);
-  });
+  // All SQLite work happens on this isolate, the UI isolate and background computations connect to it
+  return DriftIsolate.spawn(() => NativeDatabase(
+        File(path),
+        // The Android workers open the same file: WAL lets the backup export read a snapshot while the app
+        // writes, and the busy timeout makes app writes wait out a backup import or compaction VACUUM
+        setup: (db) {
+          db.execute('PRAGMA journal_mode = WAL');
+          db.execute('PRAGMA busy_timeout = 10000');
+        },
+      ));
 }
 
 // Provider for database
@@ -1,11 +1,13 @@
 import 'package:drift/drift.dart';
 import '../app_database.dart';
 import '../tables/habit_entries_table.dart';
+import '../tables/habit_history_archive_table.dart';
 import '../tables/habits_table.dart';
+import '../../utils/history_bitmap.dart';
 
 part 'habit_entries_dao.g.dart';
 
-@DriftAccessor(tables: [HabitEntriesTable, HabitsTable])
+@DriftAccessor(tables: [HabitEntriesTable, HabitsTable, HabitHistoryArchiveTable])
 class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesDaoMixin {
   HabitEntriesDao(super.db);
 
@@ -25,6 +27,17 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
         .getSingleOrNull();
   }
 
+  // Check completion for a date, including history compacted into the archive
+  Future<bool> isCompletedOnDate(int habitId, DateTime date) async {
+    final entry = await getEntryForDate(habitId, date);
+    if (entry != null) return entry.isCompleted;
+
+    final archive = await _getArchiveForYear(habitId, date.year);
+    if (archive == null) return false;
+
+    return HistoryBitmap.isSet(archive.bits, HistoryBitmap.dayIndex(date));
+  }
+
   // Get today's entries for all habits
   Future<List<HabitEntryData>> getTodayEntries() {
     final today = DateTime.now();
@@ -36,25 +49,31 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
   }
 
   // Mark habit as completed for a date
-  Future<void> markHabitCompleted(int habitId, DateTime date, bool isCompleted) async {
+  Future<void> markHabitCompleted(int habitId, DateTime date, bool isCompleted) {
     final dateOnly = DateTime(date.year, date.month, date.day);
-    final existingEntry = await getEntryForDate(habitId, dateOnly);
-
-    if (existingEntry != null) {
-      // Update existing entry
-      await (update(habitEntriesTable)
-            ..where((e) => e.id.equals(existingEntry.id)))
-          .write(HabitEntriesTableCompanion(
-            isCompleted: Value(isCompleted),
-          ));
-    } else {
-      // Create new entry
-      await into(habitEntriesTable).insert(HabitEntriesTableCompanion(
-        habitId: Value(habitId),
-        date: Value(dateOnly),
-        isCompleted: Value(isCompleted),
-      ));
-    }
+
+    return transaction(() async {
+      // The live row becomes the single source of truth for this day
+      await _clearArchivedDay(habitId, dateOnly);
+
+      final existingEntry = await getEntryForDate(habitId, dateOnly);
+
+      if (existingEntry != null) {
+        // Update existing entry
+        await (update(habitEntriesTable)
+              ..where((e) => e.id.equals(existingEntry.id)))
+            .write(HabitEntriesTableCompanion(
+              isCompleted: Value(isCompleted),
+            ));
+      } else {
+        // Create new entry
+        await into(habitEntriesTable).insert(HabitEntriesTableCompanion(
+          habitId: Value(habitId),
+          date: Value(dateOnly),
+          isCompleted: Value(isCompleted),
+        ));
+      }
+    });
   }
 
   // Calculate current streak for a habit
@@ -64,13 +83,8 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
 
     if (habit == null) return 0;
 
-    final targetDays = habit.targetDays
-        .split(',')
-        .map((day) => int.tryParse(day.trim()))
-        .whereType<int>()
-        .toSet();
-
     final now = DateTime.now();
+    // The compaction horizon is always longer than this window, so the archive never needs to be read here
     final yearAgo = now.subtract(const Duration(days: 365));
 
     final habitEntries = await (select(habitEntriesTable)
@@ -81,7 +95,64 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
       ..orderBy([(e) => OrderingTerm.desc(e.date)]))
         .get();
 
-    if (habitEntries.isEmpty) return 0;
+    return _streakFrom(_parseTargetDays(habit.targetDays), habitEntries.map((e) => e.date).toList(), now);
+  }
+
+  // Today's completion, current streak and total completions of several habits with three queries
+  // in total instead of three per habit
+  Future<Map<int, HabitStats>> getHabitStats(List<HabitData> habits, DateTime now) async {
+    if (habits.isEmpty) return {};
+
+    final habitIds = habits.map((h) => h.id).toList();
+    final today = DateTime(now.year, now.month, now.day);
+    final yearAgo = now.subtract(const Duration(days: 365));
+
+    final recentEntries = await (select(habitEntriesTable)
+          ..where((e) =>
+              e.habitId.isIn(habitIds) & e.isCompleted.equals(true) & e.date.isBiggerThan(Variable(yearAgo)))
+          ..orderBy([(e) => OrderingTerm.asc(e.habitId), (e) => OrderingTerm.desc(e.date)]))
+        .get();
+
+    final completionCount = habitEntriesTable.id.count();
+    final liveTotals = await (selectOnly(habitEntriesTable)
+          ..addColumns([habitEntriesTable.habitId, completionCount])
+          ..where(habitEntriesTable.habitId.isIn(habitIds) & habitEntriesTable.isCompleted.equals(true))
+          ..groupBy([habitEntriesTable.habitId]))
+        .get();
+
+    final archives = await (select(habitHistoryArchiveTable)..where((a) => a.habitId.isIn(habitIds))).get();
+
+    final recentDates = <int, List<DateTime>>{};
+    for (final entry in recentEntries) {
+      recentDates.putIfAbsent(entry.habitId, () => []).add(entry.date);
+    }
+
+    final totals = <int, int>{
+      for (final row in liveTotals) row.read(habitEntriesTable.habitId)!: row.read(completionCount) ?? 0,
+    };
+    for (final archive in archives) {
+      totals[archive.habitId] = (totals[archive.habitId] ?? 0) + HistoryBitmap.count(archive.bits);
+    }
+
+    return {
+      for (final habit in habits)
+        habit.id: HabitStats(
+          isCompletedToday: recentDates[habit.id]?.contains(today) ?? false,
+          currentStreak: _streakFrom(_parseTargetDays(habit.targetDays), recentDates[habit.id] ?? const [], now),
+          totalCompletions: totals[habit.id] ?? 0,
+        ),
+    };
+  }
+
+  static Set<int> _parseTargetDays(String targetDays) => targetDays
+      .split(',')
+      .map((day) => int.tryParse(day.trim()))
+      .whereType<int>()
+      .toSet();
+
+  // Walk back from today over completed dates (newest first) until a target day without a completion
+  static int _streakFrom(Set<int> targetDays, List<DateTime> completedDates, DateTime now) {
+    if (completedDates.isEmpty) return 0;
 
     int streak = 0;
     DateTime checkDate = DateTime(now.year, now.month, now.day);
@@ -94,8 +165,8 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
       if (targetDays.contains(checkDate.weekday)) {
         bool foundMatch = false;
 
-        while (entryIndex < habitEntries.length) {
-          final entryDate = habitEntries[entryIndex].date;
+        while (entryIndex < completedDates.length) {
+          final entryDate = completedDates[entryIndex];
           final habitEntryDate = DateTime(entryDate.year, entryDate.month, entryDate.day);
 
           if (habitEntryDate.isAtSameMomentAs(checkDate)) {
@@ -133,7 +204,10 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
               habitEntriesTable.isCompleted.equals(true)))
         .getSingle();
 
-    return result.read(habitEntriesTable.id.count()) ?? 0;
+    final liveCount = result.read(habitEntriesTable.id.count()) ?? 0;
+    final archives = await _getArchivesForHabit(habitId);
+
+    return archives.fold<int>(liveCount, (total, a) => total + HistoryBitmap.count(a.bits));
   }
 
   // Get completed dates for calendar view
@@ -142,6 +216,46 @@ class HabitEntriesDao extends DatabaseAccessor<AppDatabase> with _$HabitEntriesD
           ..where((e) => e.habitId.equals(habitId) & e.isCompleted.equals(true)))
         .get();
 
-    return entries.map((e) => e.date).toList();
+    final archives = await _getArchivesForHabit(habitId);
+
+    return [
+      for (final archive in archives) ...HistoryBitmap.decode(archive.year, archive.bits),
+      ...entries.map((e) => e.date),
+    ];
   }
+
+  Future<List<HabitHistoryArchiveData>> _getArchivesForHabit(int habitId) =>
+      (select(habitHistoryArchiveTable)
+            ..where((a) => a.habitId.equals(habitId))
+            ..orderBy([(a) => OrderingTerm.asc(a.year)]))
+          .get();
+
+  Future<HabitHistoryArchiveData?> _getArchiveForYear(int habitId, int year) =>
+      (select(habitHistoryArchiveTable)
+            ..where((a) => a.habitId.equals(habitId) & a.year.equals(year)))
+          .getSingleOrNull();
+
+  Future<void> _clearArchivedDay(int habitId, DateTime date) async {
+    final archive = await _getArchiveForYear(habitId, date.year);
+    final dayIndex = HistoryBitmap.dayIndex(date);
+    if (archive == null || !HistoryBitmap.isSet(archive.bits, dayIndex)) return;
+
+    await (update(habitHistoryArchiveTable)
+          ..where((a) => a.habitId.equals(habitId) & a.year.equals(date.year)))
+        .write(HabitHistoryArchiveTableCompanion(
+          bits: Value(HistoryBitmap.withBit(archive.bits, dayIndex, false)),
+        ));
+  }
+}
+
+class HabitStats {
+  final bool isCompletedToday;
+  final int currentStreak;
+  final int totalCompletions;
+
+  const HabitStats({
+    required this.isCompletedToday,
+    required this.currentStreak,
+    required this.totalCompletions,
+  });
 }
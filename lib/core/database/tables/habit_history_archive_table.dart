@@ -0,0 +1,14 @@
+import 'package:drift/drift.dart';
+import 'habits_table.dart';
+
+/// Compacted completion history: one row per habit per year.
+/// `bits` holds one bit per day of the year (bit 0 = January 1st), see [HistoryBitmap].
+@DataClassName('HabitHistoryArchiveData')
+class HabitHistoryArchiveTable extends Table {
+  IntColumn get habitId => integer().references(HabitsTable, #id, onDelete: KeyAction.cascade)();
+  IntColumn get year => integer()();
+  BlobColumn get bits => blob()(); // 46 bytes, enough for 366 days
+
+  @override
+  Set<Column> get primaryKey => {habitId, year};
+}
@@ -0,0 +1,32 @@
+import 'package:flutter/services.dart';
+
+/// Result of a finished backup operation
+class BackupResult {
+  final int habits;
+  final int entries;
+
+  const BackupResult({required this.habits, required this.entries});
+}
+
+/// Export and import of the full habit history.
+/// The work runs in HabitBackupWorker on Android, streaming the database in
+/// compressed, checksummed chunks, so neither isolate holds the history in memory.
+class BackupService {
+  static const MethodChannel _channel = MethodChannel('com.example.streakly/widget');
+
+  /// Write a backup of all habits and entries to [path]
+  static Future<BackupResult> exportHistory(String path) => _run('exportHistory', path);
+
+  /// Replace all habits and entries with the backup at [path].
+  /// Nothing changes if the file is corrupt; callers should refresh habit providers afterwards.
+  static Future<BackupResult> importHistory(String path) => _run('importHistory', path);
+
+  static Future<BackupResult> _run(String method, String path) async {
+    final result = await _channel.invokeMapMethod<String, dynamic>(method, {'path': path});
+
+    return BackupResult(
+      habits: (result?['habits'] as num?)?.toInt() ?? 0,
+      entries: (result?['entries'] as num?)?.toInt() ?? 0,
+    );
+  }
+}
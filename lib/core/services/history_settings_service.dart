@@ -0,0 +1,33 @@
+import 'package:shared_preferences/shared_preferences.dart';
+
+class HistorySettingsService {
+  // Read by HistoryCompactionWorker on the Android side as flutter.history_compaction_horizon_days
+  static const String _compactionHorizonKey = 'history_compaction_horizon_days';
+
+  static const int defaultCompactionHorizonDays = 730;
+
+  /// Must stay above the 365 day window streaks are calculated from
+  static const int minCompactionHorizonDays = 400;
+
+  /// Days of history kept as individual entries before they are folded into yearly bitmaps
+  static Future<int> getCompactionHorizonDays() async {
+    final prefs = await SharedPreferences.getInstance();
+
+    return prefs.getInt(_compactionHorizonKey) ?? defaultCompactionHorizonDays;
+  }
+
+  /// Set the compaction horizon, clamped to the minimum the worker accepts
+  static Future<void> setCompactionHorizonDays(int days) async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.setInt(
+      _compactionHorizonKey,
+      days < minCompactionHorizonDays ? minCompactionHorizonDays : days,
+    );
+  }
+
+  /// Go back to the default horizon
+  static Future<void> resetCompactionHorizon() async {
+    final prefs = await SharedPreferences.getInstance();
+    await prefs.remove(_compactionHorizonKey);
+  }
+}
@@ -8,6 +8,9 @@ import '../../features/habit/domain/repositories/habit_widget_repository.dart';
 import '../../features/habit/data/repositories/habit_widget_repository_impl.dart';
 import '../../features/habit/domain/models/habit_widget.dart';
 
+// Must match the WidgetConfig.SORT_* constants on Android
+enum WidgetSortOrder { reminderTime, title }
+
 class SimpleWidgetService {
   final HabitWidgetRepository _widgetRepository;
   bool _isInitialized = false;
@@ -94,11 +97,13 @@ class SimpleWidgetService {
       // Clean up old duplicate widget data first
       await _cleanupOldWidgetData(prefs);
 
+      final widgetDataJson = jsonEncode(widgetData);
+
       // Only save once to the main key that Android widget can find
-      await prefs.setString('$_widgetDataKey', jsonEncode(widgetData));
+      await prefs.setString('$_widgetDataKey', widgetDataJson);
 
       // Also save with the flutter. prefix for compatibility with Android widget
-      await prefs.setString('flutter.$_widgetDataKey', jsonEncode(widgetData));
+      await prefs.setString('flutter.$_widgetDataKey', widgetDataJson);
 
       // Update home_widget for actual home screen widget updates
       await HomeWidget.updateWidget(
@@ -125,6 +130,30 @@ class SimpleWidgetService {
     }
   }
 
+  /// Configure a single home screen widget. An empty [habitIds] shows all habits,
+  /// the window is in minutes of the day and may wrap past midnight.
+  Future<void> setWidgetConfiguration({
+    required int appWidgetId,
+    List<int> habitIds = const [],
+    WidgetSortOrder sortOrder = WidgetSortOrder.reminderTime,
+    bool hideCompleted = false,
+    int? windowStartMinutes,
+    int? windowEndMinutes,
+  }) async {
+    try {
+      await _widgetChannel.invokeMethod('setWidgetConfiguration', {
+        'appWidgetId': appWidgetId,
+        'habitIds': habitIds,
+        'sortOrder': sortOrder.index,
+        'hideCompleted': hideCompleted,
+        'windowStartMinutes': windowStartMinutes ?? -1,
+        'windowEndMinutes': windowEndMinutes ?? -1,
+      });
+    } catch (e) {
+      print('Error configuring widget $appWidgetId: $e');
+    }
+  }
+
   Future<void> onHabitChanged() async {
     await updateWidgetData();
   }
@@ -0,0 +1,71 @@
+import 'dart:typed_data';
+
+/// Packed per-year completion bitmap used by habit_history_archive_table.
+/// Must stay in sync with HistoryCompactionWorker on the Android side.
+class HistoryBitmap {
+  /// Bytes needed to store one bit per day of a leap year
+  static const int bytesPerYear = 46;
+
+  /// Day index within the year (0 = January 1st), independent of DST
+  static int dayIndex(DateTime date) {
+    return DateTime.utc(date.year, date.month, date.day)
+        .difference(DateTime.utc(date.year, 1, 1))
+        .inDays;
+  }
+
+  static bool isSet(Uint8List bits, int dayIndex) {
+    final byteIndex = dayIndex >> 3;
+    if (byteIndex >= bits.length) return false;
+
+    return (bits[byteIndex] & (1 << (dayIndex & 7))) != 0;
+  }
+
+  static Uint8List withBit(Uint8List bits, int dayIndex, bool value) {
+    final result = Uint8List(bytesPerYear)..setRange(0, bits.length.clamp(0, bytesPerYear), bits);
+    final mask = 1 << (dayIndex & 7);
+
+    if (value) {
+      result[dayIndex >> 3] |= mask;
+    } else {
+      result[dayIndex >> 3] &= ~mask;
+    }
+
+    return result;
+  }
+
+  /// Packs the given local dates of a single year into a bitmap
+  static Uint8List encode(Iterable<DateTime> dates) {
+    final result = Uint8List(bytesPerYear);
+    for (final date in dates) {
+      final index = dayIndex(date);
+      result[index >> 3] |= 1 << (index & 7);
+    }
+
+    return result;
+  }
+
+  /// Expands a bitmap back into local midnight dates, oldest first
+  static List<DateTime> decode(int year, Uint8List bits) {
+    final dates = <DateTime>[];
+    for (int i = 0; i < bits.length * 8; i++) {
+      if (isSet(bits, i)) {
+        dates.add(DateTime(year, 1, 1 + i));
+      }
+    }
+
+    return dates;
+  }
+
+  static int count(Uint8List bits) {
+    int total = 0;
+    for (final byte in bits) {
+      int b = byte;
+      while (b != 0) {
+        b &= b - 1;
+        total++;
+      }
+    }
+
+    return total;
+  }
+}
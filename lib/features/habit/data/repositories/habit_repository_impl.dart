@@ -2,6 +2,7 @@ import 'package:drift/drift.dart';
 import 'package:flutter_riverpod/flutter_riverpod.dart';
 
 import '../../../../core/database/app_database.dart';
+import '../../../../core/database/daos/habit_entries_dao.dart';
 import '../../../../core/services/notification_service.dart';
 import '../../domain/models/habit.dart';
 import '../../domain/repositories/habit_repository.dart';
@@ -11,39 +12,17 @@ class HabitRepositoryImpl implements HabitRepository {
 
   HabitRepositoryImpl(this._database);
 
-  @override
-  Future<List<Habit>> getAllHabits() async {
-    final habitData = await _database.habitsDao.getAllHabits();
-    final List<Habit> habits = [];
-
-    for (final data in habitData) {
-      final habit = await _mapHabitDataToHabit(data);
-      habits.add(habit);
-    }
-
-    return habits;
-  }
+  // Habit lists and their stats scan the entries table and are loaded on a background isolate, see
+  // AppDatabase.runInBackground. Single-habit lookups are cheaper than spawning one and stay on this connection.
 
   @override
-  Future<Habit?> getHabitById(int id) async {
-    final habitData = await _database.habitsDao.getHabitById(id);
-    if (habitData == null) return null;
-
-    return _mapHabitDataToHabit(habitData);
-  }
+  Future<List<Habit>> getAllHabits() => _database.runInBackground(_loadAllHabits);
 
   @override
-  Future<List<Habit>> getHabitsForToday() async {
-    final habitData = await _database.habitsDao.getHabitsForToday();
-    final List<Habit> habits = [];
-
-    for (final data in habitData) {
-      final habit = await _mapHabitDataToHabit(data);
-      habits.add(habit);
-    }
+  Future<Habit?> getHabitById(int id) => _loadHabitById(_database, id);
 
-    return habits;
-  }
+  @override
+  Future<List<Habit>> getHabitsForToday() => _database.runInBackground(_loadHabitsForToday);
 
   @override
   Future<int> createHabit(CreateHabitRequest request) async {
@@ -101,14 +80,12 @@ class HabitRepositoryImpl implements HabitRepository {
 
   @override
   Future<bool> isHabitCompletedForDate(int habitId, DateTime date) async {
-    final entry = await _database.habitEntriesDao.getEntryForDate(habitId, date);
-
-    return entry?.isCompleted ?? false;
+    return await _database.habitEntriesDao.isCompletedOnDate(habitId, date);
   }
 
   @override
-  Future<int> calculateStreak(int habitId) async {
-    return await _database.habitEntriesDao.calculateStreak(habitId);
+  Future<int> calculateStreak(int habitId) {
+    return _database.habitEntriesDao.calculateStreak(habitId);
   }
 
   @override
@@ -117,17 +94,39 @@ class HabitRepositoryImpl implements HabitRepository {
   }
 
   @override
-  Future<List<DateTime>> getCompletedDates(int habitId) async {
-    return await _database.habitEntriesDao.getCompletedDates(habitId);
+  Future<Set<DateTime>> getCompletedDates(int habitId) {
+    return _loadCompletedDays(_database, habitId);
   }
 
-  // Helper method to map database model to domain model
-  Future<Habit> _mapHabitDataToHabit(HabitData data) async {
-    final today = DateTime.now();
-    final isCompletedToday = await isHabitCompletedForDate(data.id, today);
-    final currentStreak = await calculateStreak(data.id);
-    final totalCompletions = await getTotalCompletions(data.id);
+  static Future<List<Habit>> _loadAllHabits(AppDatabase db) async {
+    return _mapHabits(db, await db.habitsDao.getAllHabits());
+  }
+
+  static Future<List<Habit>> _loadHabitsForToday(AppDatabase db) async {
+    return _mapHabits(db, await db.habitsDao.getHabitsForToday());
+  }
+
+  static Future<Habit?> _loadHabitById(AppDatabase db, int id) async {
+    final habitData = await db.habitsDao.getHabitById(id);
+    if (habitData == null) return null;
+
+    return (await _mapHabits(db, [habitData])).single;
+  }
 
+  static Future<Set<DateTime>> _loadCompletedDays(AppDatabase db, int habitId) async {
+    final dates = await db.habitEntriesDao.getCompletedDates(habitId);
+
+    return {for (final date in dates) DateTime(date.year, date.month, date.day)};
+  }
+
+  static Future<List<Habit>> _mapHabits(AppDatabase db, List<HabitData> habitData) async {
+    final stats = await db.habitEntriesDao.getHabitStats(habitData, DateTime.now());
+
+    return [for (final data in habitData) _mapHabitDataToHabit(data, stats[data.id]!)];
+  }
+
+  // Helper method to map database model to domain model
+  static Habit _mapHabitDataToHabit(HabitData data, HabitStats stats) {
     return Habit(
       id: data.id,
       title: data.title,
@@ -135,9 +134,9 @@ class HabitRepositoryImpl implements HabitRepository {
       reminderTime: data.reminderTime,
       targetDays: data.targetDays.split(',').map((e) => int.parse(e)).toList(),
       createdAt: data.createdAt,
-      isCompletedToday: isCompletedToday,
-      currentStreak: currentStreak,
-      totalCompletions: totalCompletions,
+      isCompletedToday: stats.isCompletedToday,
+      currentStreak: stats.currentStreak,
+      totalCompletions: stats.totalCompletions,
     );
   }
 }
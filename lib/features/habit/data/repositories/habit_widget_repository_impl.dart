@@ -19,6 +19,7 @@ class HabitWidgetRepositoryImpl implements HabitWidgetRepository {
       final storedData = prefs.getString(_widgetDataKey);
 
       if (storedData != null) {
+        // A few hundred bytes: decoding inline is cheaper than spawning an isolate for it
         final widgetData = WidgetData.fromJson(jsonDecode(storedData));
         // Return cached data if it's recent (within 5 minutes)
         if (DateTime.now().difference(widgetData.lastUpdated).inMinutes < 5) {
@@ -70,26 +71,28 @@ class HabitWidgetRepositoryImpl implements HabitWidgetRepository {
   }
 
   @override
-  Future<List<WidgetHabit>> getTodayHabitsForWidget() async {
-    // For now, get habits directly from database
+  Future<List<WidgetHabit>> getTodayHabitsForWidget() => _database.runInBackground(_loadTodayHabits);
+
+  static Future<List<WidgetHabit>> _loadTodayHabits(AppDatabase db) async {
     final today = DateTime.now();
     final todayWeekday = today.weekday; // 1=Monday, 7=Sunday
 
-    final habitDataList = await _database.habitsDao.getAllHabits();
+    final habitDataList = await db.habitsDao.getAllHabits();
+    // Completion status of every habit for today in one query
+    final completedToday = {
+      for (final entry in await db.habitEntriesDao.getTodayEntries())
+        if (entry.isCompleted) entry.habitId,
+    };
     final List<WidgetHabit> todayHabits = [];
 
     for (final habitData in habitDataList) {
       final targetDays = habitData.targetDays.split(',').map((e) => int.parse(e.trim())).toList();
 
       if (targetDays.contains(todayWeekday)) {
-        // Calculate completion status for today
-        final todayEntry = await _database.habitEntriesDao.getEntryForDate(habitData.id, today);
-        final isCompleted = todayEntry?.isCompleted ?? false;
-
         todayHabits.add(WidgetHabit(
           id: habitData.id,
           title: habitData.title,
-          isCompletedToday: isCompleted,
+          isCompletedToday: completedToday.contains(habitData.id),
           targetDays: targetDays,
           reminderTime: habitData.reminderTime,
         ));
@@ -122,7 +125,7 @@ class HabitWidgetRepositoryImpl implements HabitWidgetRepository {
     );
   }
 
-  List<WidgetHabit> _sortWidgetHabits(List<WidgetHabit> habits) {
+  static List<WidgetHabit> _sortWidgetHabits(List<WidgetHabit> habits) {
     return habits.toList()..sort((a, b) {
       // First, compare completion status - completed habits go to bottom
       if (a.isCompletedToday != b.isCompletedToday) {
@@ -130,22 +133,21 @@ class HabitWidgetRepositoryImpl implements HabitWidgetRepository {
       }
 
       // If both have the same completion status, sort by reminder time
-      final timeA = _parseWidgetTime(a.reminderTime);
-      final timeB = _parseWidgetTime(b.reminderTime);
-      return timeA.compareTo(timeB);
+      return _reminderMinutes(a.reminderTime) - _reminderMinutes(b.reminderTime);
     });
   }
 
-  DateTime _parseWidgetTime(String? timeString) {
+  // Minutes of the day, same ordering as the native widget snapshot query
+  static int _reminderMinutes(String? timeString) {
     if (timeString == null || timeString.isEmpty) {
       // If no reminder time is set, treat it as very late in the day
-      return DateTime(2023, 1, 1, 23, 59);
+      return 23 * 60 + 59;
     }
 
-    final parts = timeString.split(':');
-    final hour = int.parse(parts[0]);
-    final minute = parts.length > 1 ? int.parse(parts[1]) : 0;
-    return DateTime(2023, 1, 1, hour, minute); // Use dummy date for time comparison
+    final separator = timeString.indexOf(':');
+    if (separator < 0) return int.parse(timeString) * 60;
+
+    return int.parse(timeString.substring(0, separator)) * 60 + int.parse(timeString.substring(separator + 1));
   }
 }
 
@@ -14,5 +14,5 @@ abstract class HabitRepository {
   Future<bool> isHabitCompletedForDate(int habitId, DateTime date);
   Future<int> calculateStreak(int habitId);
   Future<int> getTotalCompletions(int habitId);
-  Future<List<DateTime>> getCompletedDates(int habitId);
+  Future<Set<DateTime>> getCompletedDates(int habitId); // Day-only dates, for calendar lookups
 }
@@ -77,7 +77,7 @@ class HabitDetailPage extends ConsumerWidget {
     BuildContext context,
     WidgetRef ref,
     Habit habit,
-    AsyncValue<List<DateTime>> completedDatesAsync,
+    AsyncValue<Set<DateTime>> completedDatesAsync,
   ) {
     final l10n = AppLocalizations.of(context)!;
     
@@ -286,12 +286,8 @@ class HabitDetailPage extends ConsumerWidget {
     );
   }
 
-  Widget _buildCalendar(List<DateTime> completedDates) {
-    // Convert to Set for O(1) lookups
-    final completedDatesSet = completedDates.map((date) {
-      return DateTime(date.year, date.month, date.day);
-    }).toSet();
-
+  // completedDates holds day-only dates, built off the UI isolate by the repository
+  Widget _buildCalendar(Set<DateTime> completedDates) {
     return Card(
       child: Padding(
         padding: const EdgeInsets.all(16.0),
@@ -349,7 +345,7 @@ class HabitDetailPage extends ConsumerWidget {
           eventLoader: (day) {
             final dayOnly = DateTime(day.year, day.month, day.day);
 
-            return completedDatesSet.contains(dayOnly) ? [day] : [];
+            return completedDates.contains(dayOnly) ? [day] : [];
           },
           calendarBuilders: CalendarBuilders(
             markerBuilder: (context, date, events) {
@@ -59,7 +59,7 @@ Future<Habit?> habit(HabitRef ref, int habitId) async {
 
 // Provider for habit completed dates (for calendar)
 @riverpod
-Future<List<DateTime>> habitCompletedDates(HabitCompletedDatesRef ref, int habitId) async {
+Future<Set<DateTime>> habitCompletedDates(HabitCompletedDatesRef ref, int habitId) async {
   final repository = ref.watch(habitRepositoryProvider);
 
   return await repository.getCompletedDates(habitId);
@@ -0,0 +1,85 @@
+import 'package:drift/drift.dart';
+import 'package:drift/isolate.dart';
+import 'package:drift/native.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'package:streakly/core/database/app_database.dart';
+import 'package:streakly/features/habit/data/repositories/habit_repository_impl.dart';
+import 'package:streakly/features/habit/data/repositories/habit_widget_repository_impl.dart';
+
+// Set on the test isolate only: a computation that still sees 0 ran on another isolate
+int _isolateMarker = 0;
+
+// Top-level, so nothing from the test body is captured and sent to the background isolate
+Future<int> _readIsolateMarker(AppDatabase db) async => _isolateMarker;
+
+Future<int> _countHabits(AppDatabase db) async => (await db.habitsDao.getAllHabits()).length;
+
+void main() {
+  late DriftIsolate driftIsolate;
+  late AppDatabase database;
+
+  setUp(() {
+    _isolateMarker = 1;
+    driftIsolate = DriftIsolate.inCurrent(() => DatabaseConnection(NativeDatabase.memory()));
+    database = AppDatabase.forTestingIsolate(driftIsolate);
+  });
+
+  tearDown(() async {
+    await database.close();
+    await driftIsolate.shutdownAll();
+  });
+
+  Future<void> seed() async {
+    final now = DateTime.now();
+    for (int h = 0; h < 3; h++) {
+      final id = await database.habitsDao.createHabit(HabitsTableCompanion.insert(
+        title: 'Habit $h',
+        reminderTime: '0$h:30',
+        targetDays: '1,2,3,4,5,6,7',
+      ));
+      // Habit h is completed on the last h + 1 days, except habit 2 which is still open today
+      for (int d = 0; d <= h; d++) {
+        if (h == 2 && d == 0) continue;
+        await database.habitEntriesDao.markHabitCompleted(id, DateTime(now.year, now.month, now.day - d), true);
+      }
+    }
+  }
+
+  test('computations run on a background isolate connected to the drift isolate', () async {
+    await seed();
+
+    expect(await database.runInBackground(_readIsolateMarker), 0);
+    expect(await database.runInBackground(_countHabits), 3,
+        reason: 'the background connection sees rows written through the main one');
+  });
+
+  test('repository lists load through the isolate, lookups through the main connection', () async {
+    await seed();
+    final repository = HabitRepositoryImpl(database);
+
+    final habits = await repository.getAllHabits();
+    expect(habits.map((h) => h.title), ['Habit 0', 'Habit 1', 'Habit 2']);
+    expect(habits.map((h) => h.isCompletedToday), [true, true, false]);
+    expect(habits.map((h) => h.currentStreak), [1, 2, 0]);
+    expect(habits.map((h) => h.totalCompletions), [1, 2, 2]);
+
+    final now = DateTime.now();
+    expect(await repository.calculateStreak(habits[1].id), 2);
+    expect((await repository.getHabitById(habits[2].id))?.totalCompletions, 2);
+    expect(await repository.getCompletedDates(habits[1].id), {
+      DateTime(now.year, now.month, now.day),
+      DateTime(now.year, now.month, now.day - 1),
+    });
+  });
+
+  test('widget habits are loaded through the isolate', () async {
+    await seed();
+
+    final widgetHabits = await HabitWidgetRepositoryImpl(database).getTodayHabitsForWidget();
+
+    // Open habits first, then by reminder time
+    expect(widgetHabits.map((h) => h.title), ['Habit 2', 'Habit 0', 'Habit 1']);
+    expect(widgetHabits.map((h) => h.isCompletedToday), [false, true, true]);
+  });
+}
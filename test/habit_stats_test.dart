@@ -0,0 +1,76 @@
+import 'package:drift/native.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'package:streakly/core/database/app_database.dart';
+import 'package:streakly/features/habit/data/repositories/habit_repository_impl.dart';
+
+void main() {
+  late AppDatabase database;
+
+  setUp(() {
+    database = AppDatabase.forTesting(NativeDatabase.memory());
+  });
+
+  tearDown(() async {
+    await database.close();
+  });
+
+  test('batched stats match the per-habit readers', () async {
+    final now = DateTime.now();
+    final today = DateTime(now.year, now.month, now.day);
+    const targetDays = ['1,2,3,4,5,6,7', '1,3,5', '2,4', '6,7', '1,2,3,4,5'];
+    final habitIds = <int>[];
+
+    for (int h = 0; h < targetDays.length; h++) {
+      final id = await database.habitsDao.createHabit(HabitsTableCompanion.insert(
+        title: 'Habit $h',
+        reminderTime: '08:00',
+        targetDays: targetDays[h],
+      ));
+      habitIds.add(id);
+
+      // Two years with an unbroken recent run of a different length per habit, then gaps
+      for (int d = 0; d < 2 * 366; d++) {
+        final completed = d < 10 * h || (d * 7 + h) % 4 != 0;
+        if (h == 0 && d == 0) continue; // Today still open
+        await database.habitEntriesDao
+            .markHabitCompleted(id, DateTime(today.year, today.month, today.day - d), completed);
+      }
+    }
+
+    final habits = await database.habitsDao.getAllHabits();
+    final stats = await database.habitEntriesDao.getHabitStats(habits, now);
+
+    for (final id in habitIds) {
+      expect(stats[id]!.currentStreak, await database.habitEntriesDao.calculateStreak(id), reason: 'streak $id');
+      expect(stats[id]!.totalCompletions, await database.habitEntriesDao.getTotalCompletions(id),
+          reason: 'total $id');
+      expect(stats[id]!.isCompletedToday, await database.habitEntriesDao.isCompletedOnDate(id, today),
+          reason: 'today $id');
+    }
+    expect(stats.values.map((s) => s.currentStreak).toSet().length, greaterThan(1));
+  });
+
+  test('repository lists carry the same stats as single habits', () async {
+    for (int h = 0; h < 3; h++) {
+      final id = await database.habitsDao.createHabit(HabitsTableCompanion.insert(
+        title: 'Habit $h',
+        reminderTime: '0$h:30',
+        targetDays: '1,2,3,4,5,6,7',
+      ));
+      for (int d = 0; d <= h; d++) {
+        final now = DateTime.now();
+        await database.habitEntriesDao.markHabitCompleted(id, DateTime(now.year, now.month, now.day - d), true);
+      }
+    }
+
+    final repository = HabitRepositoryImpl(database);
+    final habits = await repository.getAllHabits();
+
+    expect(habits.map((h) => h.currentStreak), [1, 2, 3]);
+    for (final habit in habits) {
+      expect(await repository.getHabitById(habit.id), habit);
+      expect((await repository.getCompletedDates(habit.id)).length, habit.totalCompletions);
+    }
+  });
+}
@@ -0,0 +1,151 @@
+import 'package:drift/drift.dart';
+import 'package:drift/native.dart';
+import 'package:flutter_test/flutter_test.dart';
+
+import 'package:streakly/core/database/app_database.dart';
+import 'package:streakly/core/utils/history_bitmap.dart';
+
+// Stand-in for HistoryCompactionWorker.compact (covered by HistoryCompactionWorkerTest on the JVM)
+// used to check that the readers merge both tables
+Future<void> _compact(AppDatabase db, DateTime horizon, DateTime today) async {
+  await db.transaction(() async {
+    await (db.delete(db.habitEntriesTable)
+          ..where((e) => e.isCompleted.equals(false) & e.date.isSmallerThanValue(today)))
+        .go();
+
+    final oldEntries = await (db.select(db.habitEntriesTable)
+          ..where((e) => e.isCompleted.equals(true) & e.date.isSmallerThanValue(horizon)))
+        .get();
+
+    final byHabitYear = <(int, int), List<DateTime>>{};
+    for (final entry in oldEntries) {
+      byHabitYear.putIfAbsent((entry.habitId, entry.date.year), () => []).add(entry.date);
+    }
+
+    for (final MapEntry(key: (habitId, year), value: dates) in byHabitYear.entries) {
+      await db.into(db.habitHistoryArchiveTable).insertOnConflictUpdate(
+            HabitHistoryArchiveTableCompanion.insert(
+              habitId: habitId,
+              year: year,
+              bits: HistoryBitmap.encode(dates),
+            ),
+          );
+    }
+
+    await (db.delete(db.habitEntriesTable)
+          ..where((e) => e.isCompleted.equals(true) & e.date.isSmallerThanValue(horizon)))
+        .go();
+  });
+}
+
+// Same golden bitmaps as HistoryCompactionWorkerTest on the Android side
+const _golden2024 =
+    '8101000000000008000000000000000000000000000000000000000000000000000000000000000000000000000020';
+const _golden2023 =
+    '0100000000000008000000000000000000000000000000000000000000000000000000000000000000000000000010';
+
+String _hex(List<int> bytes) =>
+    bytes.map((b) => b.toRadixString(16).padLeft(2, '0')).join().toUpperCase();
+
+Future<Map<String, Object>> _readAll(AppDatabase db, List<int> habitIds, List<DateTime> probeDates) async {
+  final dao = db.habitEntriesDao;
+  final result = <String, Object>{};
+
+  for (final id in habitIds) {
+    final dates = (await dao.getCompletedDates(id)).map((d) => d.millisecondsSinceEpoch).toList()..sort();
+    result['dates_$id'] = dates;
+    result['total_$id'] = await dao.getTotalCompletions(id);
+    result['streak_$id'] = await dao.calculateStreak(id);
+    for (final date in probeDates) {
+      result['done_${id}_${date.toIso8601String()}'] = await dao.isCompletedOnDate(id, date);
+    }
+  }
+
+  return result;
+}
+
+void main() {
+  late AppDatabase database;
+
+  setUp(() {
+    database = AppDatabase.forTesting(NativeDatabase.memory());
+  });
+
+  tearDown(() async {
+    await database.close();
+  });
+
+  test('bitmap layout matches the golden bytes written by HistoryCompactionWorker', () {
+    final dates2024 = [
+      DateTime(2024, 1, 1),
+      DateTime(2024, 1, 8),
+      DateTime(2024, 1, 9),
+      DateTime(2024, 2, 29),
+      DateTime(2024, 12, 31),
+    ];
+    final dates2023 = [DateTime(2023, 1, 1), DateTime(2023, 3, 1), DateTime(2023, 12, 31)];
+
+    expect(_hex(HistoryBitmap.encode(dates2024)), _golden2024);
+    expect(_hex(HistoryBitmap.encode(dates2023)), _golden2023);
+    expect(HistoryBitmap.decode(2024, HistoryBitmap.encode(dates2024)), dates2024);
+    expect(HistoryBitmap.decode(2023, HistoryBitmap.encode(dates2023)), dates2023);
+  });
+
+  test('readers return the same results before and after compaction', () async {
+    final now = DateTime.now();
+    final today = DateTime(now.year, now.month, now.day);
+    final habitIds = <int>[];
+
+    for (int h = 0; h < 3; h++) {
+      final id = await database.habitsDao.createHabit(HabitsTableCompanion.insert(
+        title: 'Habit $h',
+        reminderTime: '08:00',
+        targetDays: h == 0 ? '1,2,3,4,5,6,7' : '1,3,5',
+      ));
+      habitIds.add(id);
+
+      // Three years of history with gaps and un-toggled days
+      for (int d = 0; d < 3 * 366; d++) {
+        final date = DateTime(today.year, today.month, today.day - d);
+        if ((d + h) % 5 == 0) continue;
+        await database.habitEntriesDao.markHabitCompleted(id, date, (d * 7 + h) % 3 != 0);
+      }
+    }
+
+    final probeDates = [
+      for (int d = 0; d < 3 * 366; d += 37) DateTime(today.year, today.month, today.day - d),
+    ];
+
+    final before = await _readAll(database, habitIds, probeDates);
+
+    await _compact(database, DateTime(today.year, today.month, today.day - 400), today);
+
+    final after = await _readAll(database, habitIds, probeDates);
+    expect(after, equals(before));
+
+    final liveRows = await database.select(database.habitEntriesTable).get();
+    expect(liveRows.any((e) => !e.isCompleted && e.date.isBefore(today)), isFalse);
+    expect(await database.select(database.habitHistoryArchiveTable).get(), isNotEmpty);
+  });
+
+  test('marking an archived day keeps a single source of truth', () async {
+    final today = DateTime.now();
+    final id = await database.habitsDao.createHabit(HabitsTableCompanion.insert(
+      title: 'Read',
+      reminderTime: '21:00',
+      targetDays: '1,2,3,4,5,6,7',
+    ));
+    final oldDate = DateTime(today.year - 2, 3, 14);
+
+    await database.habitEntriesDao.markHabitCompleted(id, oldDate, true);
+    await _compact(database, DateTime(today.year, today.month, today.day - 400), today);
+    expect(await database.habitEntriesDao.getTotalCompletions(id), 1);
+
+    await database.habitEntriesDao.markHabitCompleted(id, oldDate, true);
+    expect(await database.habitEntriesDao.getTotalCompletions(id), 1);
+
+    await database.habitEntriesDao.markHabitCompleted(id, oldDate, false);
+    expect(await database.habitEntriesDao.isCompletedOnDate(id, oldDate), isFalse);
+    expect(await database.habitEntriesDao.getTotalCompletions(id), 0);
+  });
+}